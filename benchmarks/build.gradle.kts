@@ -0,0 +1,29 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmh(project(":main"))
+    jmh("dev.arbjerg:lavaplayer:2.0.4")
+    jmh("org.slf4j:slf4j-simple:2.0.7")
+}
+
+// Keep the settings fixed so results of different commits can be compared with each other.
+jmh {
+    jmhVersion = "1.37"
+    fork = 2
+    warmupIterations = 5
+    warmup = "1s"
+    iterations = 10
+    timeOnIteration = "1s"
+    benchmarkMode = listOf("thrpt")
+    timeUnit = "ms"
+    jvmArgs = listOf("-Xms1g", "-Xmx1g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    project.findProperty("jmh.includes")?.let { includes = listOf(it.toString()) }
+}
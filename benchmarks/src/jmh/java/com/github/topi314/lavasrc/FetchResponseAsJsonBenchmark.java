@@ -0,0 +1,54 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.HttpGet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Measures {@link LavaSrcTools#fetchResponseAsJson} against a local http server which serves the recorded fixtures,
+ * so the numbers contain reading and parsing the body but no real network latency.
+ */
+@State(Scope.Benchmark)
+public class FetchResponseAsJsonBenchmark {
+
+	@Param({"spotify_playlist_tracks.json", "applemusic_playlist_tracks.json", "deezer_gw_song_list_data.json", "yandexmusic_search.json"})
+	public String fixture;
+
+	private HttpServer server;
+	private HttpInterfaceManager httpInterfaceManager;
+	private String url;
+
+	@Setup
+	public void setup() throws IOException {
+		var body = Fixtures.bytes(this.fixture);
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (var out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		this.server.start();
+		this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+		this.url = "http://127.0.0.1:" + this.server.getAddress().getPort() + "/" + this.fixture;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.httpInterfaceManager.close();
+		this.server.stop(0);
+	}
+
+	@Benchmark
+	public Object fetchResponseAsJson() throws IOException {
+		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), new HttpGet(this.url));
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.github.topi314.lavasrc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public class Fixtures {
+
+	public static byte[] bytes(String name) {
+		try (var in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+			if (in == null) {
+				throw new IllegalArgumentException("Fixture " + name + " does not exist");
+			}
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static String string(String name) {
+		return new String(bytes(name), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.github.topi314.lavasrc.deezer;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Random;
+
+/**
+ * Measures the throughput of decrypting a 4 MiB Deezer stream through {@link DeezerPersistentHttpStream}.
+ */
+@State(Scope.Benchmark)
+public class DeezerDecryptBenchmark {
+
+	private static final int STREAM_SIZE = 4 * 1024 * 1024;
+
+	@Param({"1", "4096"})
+	public int readSize;
+
+	private DeezerPersistentHttpStream stream;
+	private BasicHttpResponse response;
+	private byte[] buffer;
+
+	@Setup
+	public void setup() {
+		var random = new Random(314);
+		var content = new byte[STREAM_SIZE];
+		random.nextBytes(content);
+		var key = new byte[16];
+		random.nextBytes(key);
+
+		this.stream = new DeezerPersistentHttpStream(null, URI.create("http://localhost/"), (long) STREAM_SIZE, key);
+		this.response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+		this.response.setEntity(new ByteArrayEntity(content));
+		this.buffer = new byte[this.readSize];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(STREAM_SIZE)
+	public long decrypt() throws IOException {
+		var total = 0L;
+		try (var in = this.stream.createContentInputStream(this.response)) {
+			if (this.readSize == 1) {
+				int b;
+				while ((b = in.read()) != -1) {
+					total += b;
+				}
+			} else {
+				int read;
+				while ((read = in.read(this.buffer, 0, this.buffer.length)) != -1) {
+					total += read;
+				}
+			}
+		}
+		return total;
+	}
+
+}
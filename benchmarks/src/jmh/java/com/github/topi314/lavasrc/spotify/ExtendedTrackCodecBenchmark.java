@@ -0,0 +1,51 @@
+package com.github.topi314.lavasrc.spotify;
+
+import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
+import com.github.topi314.lavasrc.Fixtures;
+import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+
+/**
+ * Measures {@link ExtendedAudioSourceManager#encodeTrack} and the matching decodeTrack with a Spotify track.
+ * The encoded form is followed by the track position like lavaplayer writes it.
+ */
+@State(Scope.Benchmark)
+public class ExtendedTrackCodecBenchmark {
+
+	private SpotifySourceManager sourceManager;
+	private AudioTrack track;
+	private byte[] encoded;
+
+	@Setup
+	public void setup() throws IOException {
+		this.sourceManager = new SpotifySourceManager(null, null, null, "US", unused -> null, new DefaultMirroringAudioTrackResolver(null));
+		var json = JsonBrowser.parse(Fixtures.string("spotify_playlist_tracks.json"));
+		this.track = this.sourceManager.parseTrack(json.get("items").index(0).get("track"), false);
+		this.encoded = this.encode();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.sourceManager.shutdown();
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		var out = new ByteArrayOutputStream(512);
+		var output = new DataOutputStream(out);
+		this.sourceManager.encodeTrack(this.track, output);
+		output.writeLong(0);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public AudioItem decode() throws IOException {
+		return this.sourceManager.decodeTrack(this.track.getInfo(), new DataInputStream(new ByteArrayInputStream(this.encoded)));
+	}
+
+}
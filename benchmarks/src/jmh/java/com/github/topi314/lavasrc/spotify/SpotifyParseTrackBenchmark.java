@@ -0,0 +1,43 @@
+package com.github.topi314.lavasrc.spotify;
+
+import com.github.topi314.lavasrc.Fixtures;
+import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures {@link SpotifySourceManager#parseTrack} for a full playlist page of 100 tracks.
+ */
+@State(Scope.Benchmark)
+public class SpotifyParseTrackBenchmark {
+
+	private SpotifySourceManager sourceManager;
+	private List<JsonBrowser> tracks;
+
+	@Setup
+	public void setup() throws IOException {
+		this.sourceManager = new SpotifySourceManager(null, null, null, "US", unused -> null, new DefaultMirroringAudioTrackResolver(null));
+		this.tracks = new ArrayList<>();
+		for (var item : JsonBrowser.parse(Fixtures.string("spotify_playlist_tracks.json")).get("items").values()) {
+			this.tracks.add(item.get("track"));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.sourceManager.shutdown();
+	}
+
+	@Benchmark
+	public void parseTrack(Blackhole blackhole) {
+		for (var track : this.tracks) {
+			blackhole.consume(this.sourceManager.parseTrack(track, false));
+		}
+	}
+
+}
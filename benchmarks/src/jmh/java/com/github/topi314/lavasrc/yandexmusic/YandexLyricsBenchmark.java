@@ -0,0 +1,31 @@
+package com.github.topi314.lavasrc.yandexmusic;
+
+import com.github.topi314.lavasrc.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures parsing a synced LRC lyrics file into lines with {@link YandexMusicSourceManager#parseLyrics}.
+ */
+@State(Scope.Benchmark)
+public class YandexLyricsBenchmark {
+
+	private YandexMusicSourceManager sourceManager;
+	private String[] lines;
+
+	@Setup
+	public void setup() {
+		this.sourceManager = new YandexMusicSourceManager("benchmark");
+		this.lines = Fixtures.string("yandexmusic_lyrics.lrc").split("\n");
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.sourceManager.shutdown();
+	}
+
+	@Benchmark
+	public Object parseLyrics() {
+		return this.sourceManager.parseLyrics(this.lines, 300_000, "benchmark");
+	}
+
+}
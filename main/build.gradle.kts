@@ -26,6 +26,11 @@ dependencies {
     implementation("com.auth0:java-jwt:4.4.0")
     compileOnly("org.slf4j:slf4j-api:2.0.7")
 
+    testImplementation("dev.arbjerg:lavaplayer:2.0.4")
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
     lyricsDependency("protocol")
     lyricsDependency("client")
 }
@@ -45,6 +50,10 @@ kotlin {
     jvmToolchain(11)
 }
 
+tasks.test {
+    useJUnitPlatform()
+}
+
 fun DependencyHandlerScope.lyricsDependency(module: String) {
     implementation("dev.schlaubi.lyrics", "$module-jvm", "2.5.0") {
         isTransitive = false
@@ -0,0 +1,209 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.track.*;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of {@link ExtendedAudioSourceManager#loadItem} for a limited time.
+ * Tracks are kept in their encoded form and decoded into new track instances on every hit.
+ */
+public class AudioItemCache {
+
+	private static final Logger log = LoggerFactory.getLogger(AudioItemCache.class);
+
+	private final ExpiringLruCache<String, CachedItem> cache;
+	private final Map<Type, Long> ttls;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param maxSize the maximum number of items kept
+	 * @param ttls    how long items of each type are kept in milliseconds, types without a positive ttl are not cached
+	 */
+	public AudioItemCache(int maxSize, Map<Type, Long> ttls) {
+		this.cache = new ExpiringLruCache<>(maxSize, 0);
+		this.ttls = new EnumMap<>(Type.class);
+		this.ttls.putAll(ttls);
+	}
+
+	@Nullable
+	public AudioItem get(ExtendedAudioSourceManager sourceManager, String key) {
+		var cached = this.cache.get(key);
+		if (cached == null) {
+			return null;
+		}
+		try {
+			var item = cached.decode(sourceManager);
+			this.hits.incrementAndGet();
+			return item;
+		} catch (IOException e) {
+			log.warn("Failed to decode cached item for {}", key, e);
+			this.cache.remove(key);
+			return null;
+		}
+	}
+
+	public void put(ExtendedAudioSourceManager sourceManager, String key, AudioItem item) {
+		var type = Type.of(item);
+		if (type == null) {
+			return;
+		}
+		// only loads which produced something cacheable count as a miss, everything else was not meant for this source
+		this.misses.incrementAndGet();
+		var ttl = this.ttls.getOrDefault(type, 0L);
+		if (ttl <= 0) {
+			return;
+		}
+		try {
+			this.cache.put(key, CachedItem.encode(sourceManager, item), System.currentTimeMillis() + ttl);
+		} catch (IOException | RuntimeException e) {
+			log.debug("Failed to encode item for {}, not caching it", key, e);
+		}
+	}
+
+	public void clear() {
+		this.cache.clear();
+	}
+
+	public int size() {
+		return this.cache.size();
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public enum Type {
+		TRACK,
+		ALBUM,
+		PLAYLIST,
+		ARTIST,
+		SEARCH;
+
+		@Nullable
+		public static Type of(AudioItem item) {
+			if (item instanceof AudioTrack) {
+				return TRACK;
+			}
+			if (item instanceof ExtendedAudioPlaylist) {
+				switch (((ExtendedAudioPlaylist) item).getType()) {
+					case ALBUM:
+						return ALBUM;
+					case PLAYLIST:
+						return PLAYLIST;
+					case ARTIST:
+						return ARTIST;
+					default:
+						return SEARCH;
+				}
+			}
+			if (item instanceof AudioPlaylist && ((AudioPlaylist) item).isSearchResult()) {
+				return SEARCH;
+			}
+			return null;
+		}
+	}
+
+	private static class CachedItem {
+
+		// an empty copy of the playlist which carries its type and info, null for single tracks and basic playlists
+		private final ExtendedAudioPlaylist playlist;
+		private final String name;
+		private final boolean isSearchResult;
+		private final int selectedTrack;
+		private final boolean singleTrack;
+		private final byte[][] tracks;
+
+		private CachedItem(ExtendedAudioPlaylist playlist, String name, boolean isSearchResult, int selectedTrack, boolean singleTrack, byte[][] tracks) {
+			this.playlist = playlist;
+			this.name = name;
+			this.isSearchResult = isSearchResult;
+			this.selectedTrack = selectedTrack;
+			this.singleTrack = singleTrack;
+			this.tracks = tracks;
+		}
+
+		private static CachedItem encode(ExtendedAudioSourceManager sourceManager, AudioItem item) throws IOException {
+			if (item instanceof AudioTrack) {
+				return new CachedItem(null, null, false, -1, true, new byte[][]{encodeTrack(sourceManager, (AudioTrack) item)});
+			}
+
+			var playlist = (AudioPlaylist) item;
+			var tracks = new byte[playlist.getTracks().size()][];
+			var selectedTrack = -1;
+			for (var i = 0; i < tracks.length; i++) {
+				var track = playlist.getTracks().get(i);
+				if (track == playlist.getSelectedTrack()) {
+					selectedTrack = i;
+				}
+				tracks[i] = encodeTrack(sourceManager, track);
+			}
+			var shell = playlist instanceof ExtendedAudioPlaylist ? ((ExtendedAudioPlaylist) playlist).withTracks(List.of()) : null;
+			return new CachedItem(shell, playlist.getName(), playlist.isSearchResult(), selectedTrack, false, tracks);
+		}
+
+		private AudioItem decode(ExtendedAudioSourceManager sourceManager) throws IOException {
+			if (this.singleTrack) {
+				return decodeTrack(sourceManager, this.tracks[0]);
+			}
+
+			var tracks = new ArrayList<AudioTrack>(this.tracks.length);
+			for (var track : this.tracks) {
+				tracks.add(decodeTrack(sourceManager, track));
+			}
+			if (this.playlist != null) {
+				return this.playlist.withTracks(tracks);
+			}
+			return new BasicAudioPlaylist(this.name, tracks, this.selectedTrack == -1 ? null : tracks.get(this.selectedTrack), this.isSearchResult);
+		}
+
+		private static byte[] encodeTrack(ExtendedAudioSourceManager sourceManager, AudioTrack track) throws IOException {
+			var data = new ByteArrayOutputStream(256);
+			var output = new DataOutputStream(data);
+			var info = track.getInfo();
+			output.writeUTF(info.title);
+			output.writeUTF(info.author);
+			output.writeLong(info.length);
+			output.writeUTF(info.identifier);
+			output.writeBoolean(info.isStream);
+			DataFormatTools.writeNullableText(output, info.uri);
+			DataFormatTools.writeNullableText(output, info.artworkUrl);
+			DataFormatTools.writeNullableText(output, info.isrc);
+			sourceManager.encodeTrack(track, output);
+			// decodeTrack expects the position lavaplayer writes after the source specific fields
+			output.writeLong(0);
+			return data.toByteArray();
+		}
+
+		private static AudioTrack decodeTrack(ExtendedAudioSourceManager sourceManager, byte[] data) throws IOException {
+			var input = new DataInputStream(new ByteArrayInputStream(data));
+			var info = new AudioTrackInfo(
+				input.readUTF(),
+				input.readUTF(),
+				input.readLong(),
+				input.readUTF(),
+				input.readBoolean(),
+				DataFormatTools.readNullableText(input),
+				DataFormatTools.readNullableText(input),
+				DataFormatTools.readNullableText(input)
+			);
+			return sourceManager.decodeTrack(info, input);
+		}
+
+	}
+
+}
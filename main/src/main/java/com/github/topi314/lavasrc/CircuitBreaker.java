@@ -0,0 +1,240 @@
+package com.github.topi314.lavasrc;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calls to an api which is failing or too slow, so callers fail fast instead of waiting for timeouts.
+ * <p>
+ * The breaker opens once too many of the recent calls failed or were slow. While open, no calls are permitted until the open duration passed.
+ * Then a single probe call is permitted, which closes the breaker again if it succeeds or opens it for another open duration if it fails.
+ * Calls which were permitted before the state of the breaker changed are not recorded, they say nothing about the current state.
+ */
+public class CircuitBreaker {
+
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+	public static final int DEFAULT_MIN_CALLS = 10;
+	public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+	public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+	public static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(5);
+	public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+	public static final long NOT_PERMITTED = -1;
+
+	private final boolean[] failures;
+	private final boolean[] slowCalls;
+	private int next;
+	private int count;
+	private State state = State.CLOSED;
+	private long openedAt;
+	private boolean probing;
+	// changes with every state change and probe call, so results of calls permitted before can be told apart
+	private long generation;
+	private long opened;
+
+	private int minCalls = DEFAULT_MIN_CALLS;
+	private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+	private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+	private long slowCallDuration = DEFAULT_SLOW_CALL_DURATION.toNanos();
+	private long openDuration = DEFAULT_OPEN_DURATION.toNanos();
+
+	public CircuitBreaker() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param windowSize the number of recent calls the failure and slow call rates are calculated over
+	 */
+	public CircuitBreaker(int windowSize) {
+		this.failures = new boolean[windowSize];
+		this.slowCalls = new boolean[windowSize];
+	}
+
+	/**
+	 * @param minCalls the number of calls which have to be recorded before the breaker can open
+	 */
+	public synchronized void setMinCalls(int minCalls) {
+		this.minCalls = minCalls;
+	}
+
+	/**
+	 * @param failureRateThreshold the share of failed calls between 0 and 1 at which the breaker opens
+	 */
+	public synchronized void setFailureRateThreshold(double failureRateThreshold) {
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	/**
+	 * @param slowCallDuration      the duration after which a call counts as slow
+	 * @param slowCallRateThreshold the share of slow calls between 0 and 1 at which the breaker opens
+	 */
+	public synchronized void setSlowCallThreshold(Duration slowCallDuration, double slowCallRateThreshold) {
+		this.slowCallDuration = slowCallDuration.toNanos();
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	/**
+	 * @param openDuration how long the breaker stays open before a probe call is permitted
+	 */
+	public synchronized void setOpenDuration(Duration openDuration) {
+		this.openDuration = openDuration.toNanos();
+	}
+
+	/**
+	 * Checks whether a call may be made. Every permitted call has to be followed by {@link #onSuccess}, {@link #onFailure} or {@link #onIgnored}
+	 * with the returned permission.
+	 *
+	 * @return the permission of the call, {@link #NOT_PERMITTED} if the breaker is open or a probe call is already running
+	 */
+	public synchronized long tryAcquirePermission() {
+		switch (this.state) {
+			case CLOSED:
+				return this.generation;
+			case OPEN:
+				if (System.nanoTime() - this.openedAt < this.openDuration) {
+					return NOT_PERMITTED;
+				}
+				this.state = State.HALF_OPEN;
+				return this.startProbe();
+			default:
+				if (this.probing) {
+					return NOT_PERMITTED;
+				}
+				return this.startProbe();
+		}
+	}
+
+	private long startProbe() {
+		this.probing = true;
+		return ++this.generation;
+	}
+
+	/**
+	 * Records a call which got a response from the api.
+	 *
+	 * @param permission the permission returned by {@link #tryAcquirePermission} for the call
+	 * @param duration   the duration of the call in nanoseconds
+	 */
+	public synchronized void onSuccess(long permission, long duration) {
+		this.record(permission, false, duration);
+	}
+
+	/**
+	 * Records a call which failed because of the api, like a server error or a timeout.
+	 *
+	 * @param permission the permission returned by {@link #tryAcquirePermission} for the call
+	 * @param duration   the duration of the call in nanoseconds
+	 */
+	public synchronized void onFailure(long permission, long duration) {
+		this.record(permission, true, duration);
+	}
+
+	/**
+	 * Records a call which says nothing about the health of the api, like a rate limited one.
+	 *
+	 * @param permission the permission returned by {@link #tryAcquirePermission} for the call
+	 */
+	public synchronized void onIgnored(long permission) {
+		if (this.state == State.HALF_OPEN && permission == this.generation) {
+			this.probing = false;
+		}
+	}
+
+	private void record(long permission, boolean failure, long duration) {
+		if (permission != this.generation) {
+			return;
+		}
+		var slow = duration >= this.slowCallDuration;
+		if (this.state == State.HALF_OPEN) {
+			this.probing = false;
+			if (failure || slow) {
+				this.open();
+			} else {
+				this.state = State.CLOSED;
+				this.generation++;
+				this.next = 0;
+				this.count = 0;
+			}
+			return;
+		}
+
+		this.failures[this.next] = failure;
+		this.slowCalls[this.next] = slow;
+		this.next = (this.next + 1) % this.failures.length;
+		if (this.count < this.failures.length) {
+			this.count++;
+		}
+		if (this.state == State.CLOSED && this.count >= this.minCalls && (this.getFailureRate() >= this.failureRateThreshold || this.getSlowCallRate() >= this.slowCallRateThreshold)) {
+			this.open();
+		}
+	}
+
+	private void open() {
+		this.state = State.OPEN;
+		this.generation++;
+		this.openedAt = System.nanoTime();
+		this.opened++;
+	}
+
+	public synchronized State getState() {
+		if (this.state == State.OPEN && System.nanoTime() - this.openedAt >= this.openDuration) {
+			return State.HALF_OPEN;
+		}
+		return this.state;
+	}
+
+	/**
+	 * @return the milliseconds until a probe call is permitted, 0 if the breaker is not open
+	 */
+	public synchronized long getRetryAfter() {
+		if (this.state != State.OPEN) {
+			return 0;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.openDuration - (System.nanoTime() - this.openedAt)));
+	}
+
+	/**
+	 * @return the share of recent calls which failed, 0 if nothing was recorded yet
+	 */
+	public synchronized double getFailureRate() {
+		return this.getRate(this.failures);
+	}
+
+	/**
+	 * @return the share of recent calls which were slow, 0 if nothing was recorded yet
+	 */
+	public synchronized double getSlowCallRate() {
+		return this.getRate(this.slowCalls);
+	}
+
+	/**
+	 * @return how often the breaker opened so far
+	 */
+	public synchronized long getOpened() {
+		return this.opened;
+	}
+
+	private double getRate(boolean[] values) {
+		if (this.count == 0) {
+			return 0;
+		}
+		var matches = 0;
+		for (var i = 0; i < this.count; i++) {
+			if (values[i]) {
+				matches++;
+			}
+		}
+		return (double) matches / this.count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CircuitBreaker{state=%s, failureRate=%.2f, slowCallRate=%.2f}", this.getState(), this.getFailureRate(), this.getSlowCallRate());
+	}
+
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+
+}
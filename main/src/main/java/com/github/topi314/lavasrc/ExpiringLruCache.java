@@ -0,0 +1,141 @@
+package com.github.topi314.lavasrc;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * A small thread-safe LRU cache where every entry expires after a fixed time to live.
+ * Expired entries are dropped lazily when they are accessed or when they are the eldest entry.
+ */
+public class ExpiringLruCache<K, V> {
+
+	private final int maxSize;
+	private final long ttl;
+	private final LinkedHashMap<K, Entry<V>> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param maxSize the maximum number of entries kept in memory
+	 * @param ttl     the time to live of an entry in milliseconds
+	 */
+	public ExpiringLruCache(int maxSize, long ttl) {
+		this.maxSize = maxSize;
+		this.ttl = ttl;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, ExpiringLruCache.Entry<V>> eldest) {
+				return this.size() > ExpiringLruCache.this.maxSize || eldest.getValue().isExpired(System.currentTimeMillis());
+			}
+		};
+	}
+
+	@Nullable
+	public V get(K key) {
+		synchronized (this.entries) {
+			var entry = this.entries.get(key);
+			if (entry == null) {
+				this.misses.incrementAndGet();
+				return null;
+			}
+			if (entry.isExpired(System.currentTimeMillis())) {
+				this.entries.remove(key);
+				this.misses.incrementAndGet();
+				return null;
+			}
+			this.hits.incrementAndGet();
+			return entry.value;
+		}
+	}
+
+	/**
+	 * Checks whether a value is cached without counting it as a hit or miss.
+	 */
+	public boolean contains(K key) {
+		synchronized (this.entries) {
+			var entry = this.entries.get(key);
+			return entry != null && !entry.isExpired(System.currentTimeMillis());
+		}
+	}
+
+	public void put(K key, V value) {
+		this.put(key, value, System.currentTimeMillis() + this.ttl);
+	}
+
+	/**
+	 * Puts a value with an explicit expiry timestamp, used when entries are restored from somewhere else.
+	 */
+	public void put(K key, V value, long expiresAt) {
+		if (this.maxSize <= 0 || expiresAt <= System.currentTimeMillis()) {
+			return;
+		}
+		synchronized (this.entries) {
+			this.entries.put(key, new Entry<>(value, expiresAt));
+		}
+	}
+
+	public void remove(K key) {
+		synchronized (this.entries) {
+			this.entries.remove(key);
+		}
+	}
+
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+		}
+	}
+
+	/**
+	 * Calls the consumer with every entry which is not expired yet and its expiry timestamp.
+	 */
+	public void forEach(BiConsumer<K, Entry<V>> consumer) {
+		var now = System.currentTimeMillis();
+		synchronized (this.entries) {
+			for (var entry : this.entries.entrySet()) {
+				if (!entry.getValue().isExpired(now)) {
+					consumer.accept(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	public long getTtl() {
+		return this.ttl;
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public static class Entry<V> {
+
+		public final V value;
+		public final long expiresAt;
+
+		public Entry(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		public boolean isExpired(long now) {
+			return now >= this.expiresAt;
+		}
+
+	}
+
+}
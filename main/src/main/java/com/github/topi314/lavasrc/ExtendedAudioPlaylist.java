@@ -5,6 +5,7 @@ import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ExtendedAudioPlaylist extends BasicAudioPlaylist {
@@ -54,6 +55,24 @@ public class ExtendedAudioPlaylist extends BasicAudioPlaylist {
 		return this.totalTracks;
 	}
 
+	/**
+	 * Creates a copy of this playlist with cloned tracks, so it can be handed out more than once.
+	 */
+	public ExtendedAudioPlaylist makeClone() {
+		var tracks = new ArrayList<AudioTrack>(this.getTracks().size());
+		for (var track : this.getTracks()) {
+			tracks.add(track.makeClone());
+		}
+		return this.withTracks(tracks);
+	}
+
+	/**
+	 * Creates a playlist of the same type and with the same info as this one, but with the given tracks.
+	 */
+	public ExtendedAudioPlaylist withTracks(List<AudioTrack> tracks) {
+		return new ExtendedAudioPlaylist(this.getName(), tracks, this.type, this.url, this.artworkURL, this.author, this.totalTracks);
+	}
+
 	public enum Type {
 		ALBUM("album"),
 		PLAYLIST("playlist"),
@@ -2,49 +2,267 @@ package com.github.topi314.lavasrc;
 
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.BasicAudioPlaylist;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
 
 public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
 
+	/**
+	 * The version of the track encoding, version 0 has no extended fields and version 1 writes them without a version byte.
+	 * Version 2 stores urls compactly and adds the resolved mirror of mirroring tracks.
+	 */
+	public static final int ENCODING_VERSION = 2;
+	// set on the version byte, so it can be told apart from the nullable text flag version 1 starts with
+	private static final int ENCODING_VERSION_FLAG = 0x80;
+	private static final int URL_NULL = 0;
+	private static final int URL_LITERAL = 1;
+	private static final int URL_HTTPS = 2;
+	private static final int URL_TEMPLATE = 3;
+	private static final String HTTPS_PREFIX = "https://";
+	// only added to links for campaign tracking, they never change which item a link points to
+	protected static final List<String> UTM_PARAMETERS = List.of("utm_source", "utm_medium", "utm_campaign", "utm_term", "utm_content", "utm_id");
+
+	protected final SingleFlight<String, AudioItem> inFlightLoads = new SingleFlight<>();
+	protected final CircuitBreaker circuitBreaker = new CircuitBreaker();
+	protected final RequestScheduler requestScheduler = new RequestScheduler(this.getSourceName(), this.getApiEndpoints(), this.circuitBreaker);
+	protected AudioItemCache itemCache;
+
+	/**
+	 * The scheduler api requests of this source go through, used to configure its rate limit and to inspect whether the api throttles us.
+	 */
+	public RequestScheduler getRequestScheduler() {
+		return this.requestScheduler;
+	}
+
+	/**
+	 * The circuit breaker which stops api requests of this source while the api is failing or too slow.
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
+	@Nullable
+	public AudioItemCache getItemCache() {
+		return this.itemCache;
+	}
+
+	/**
+	 * Sets the cache for loaded items, or null to disable caching. Disabled by default.
+	 */
+	public void setItemCache(@Nullable AudioItemCache itemCache) {
+		this.itemCache = itemCache;
+	}
+
+	/**
+	 * The caches this source keeps internally by name, so their hit ratios can be exported.
+	 */
+	public Map<String, ExpiringLruCache<?, ?>> getInternalCaches() {
+		return Map.of();
+	}
+
+	/**
+	 * URL prefixes which are replaced with their index when encoding tracks, so only the ids after them are stored.
+	 * Encoded tracks refer to the prefixes by index, so new prefixes must only ever be appended.
+	 */
+	protected List<String> getUrlTemplates() {
+		return List.of();
+	}
+
+	/**
+	 * Query parameters which only track where a link was shared and are removed by {@link #normalizeIdentifier}.
+	 * Only parameters which never change the item a link points to may be listed, links which differ in them share their loads and cache entries.
+	 */
+	protected List<String> getTrackingParameters() {
+		return UTM_PARAMETERS;
+	}
+
+	/**
+	 * The api endpoints requests are reported as in metrics, see {@link LavaSrcMetrics#endpoint(List, java.net.URI)}.
+	 * This is called while the source manager is constructed, so it should only return a constant.
+	 */
+	protected List<String> getApiEndpoints() {
+		return List.of();
+	}
+
 	@Override
 	public void encodeTrack(AudioTrack track, DataOutput output) throws IOException {
 		var extendedTrack = (ExtendedAudioTrack) track;
+		output.writeByte(ENCODING_VERSION_FLAG | ENCODING_VERSION);
 		DataFormatTools.writeNullableText(output, extendedTrack.getAlbumName());
-		DataFormatTools.writeNullableText(output, extendedTrack.getAlbumUrl());
-		DataFormatTools.writeNullableText(output, extendedTrack.getArtistUrl());
-		DataFormatTools.writeNullableText(output, extendedTrack.getArtistArtworkUrl());
-		DataFormatTools.writeNullableText(output, extendedTrack.getPreviewUrl());
+		this.writeUrl(output, extendedTrack.getAlbumUrl());
+		this.writeUrl(output, extendedTrack.getArtistUrl());
+		this.writeUrl(output, extendedTrack.getArtistArtworkUrl());
+		this.writeUrl(output, extendedTrack.getPreviewUrl());
 		output.writeBoolean(extendedTrack.isPreview());
 	}
 
+	protected void writeUrl(DataOutput output, @Nullable String url) throws IOException {
+		if (url == null) {
+			output.writeByte(URL_NULL);
+			return;
+		}
+		var templates = this.getUrlTemplates();
+		for (var i = 0; i < templates.size(); i++) {
+			if (url.startsWith(templates.get(i))) {
+				output.writeByte(URL_TEMPLATE + i);
+				output.writeUTF(url.substring(templates.get(i).length()));
+				return;
+			}
+		}
+		if (url.startsWith(HTTPS_PREFIX)) {
+			output.writeByte(URL_HTTPS);
+			output.writeUTF(url.substring(HTTPS_PREFIX.length()));
+			return;
+		}
+		output.writeByte(URL_LITERAL);
+		output.writeUTF(url);
+	}
+
+	@Nullable
+	protected String readUrl(DataInput input) throws IOException {
+		var type = input.readUnsignedByte();
+		switch (type) {
+			case URL_NULL:
+				return null;
+			case URL_LITERAL:
+				return input.readUTF();
+			case URL_HTTPS:
+				return HTTPS_PREFIX + input.readUTF();
+			default:
+				var templates = this.getUrlTemplates();
+				var index = type - URL_TEMPLATE;
+				if (index >= templates.size()) {
+					throw new IOException("Unknown url template " + index + " for " + this.getSourceName());
+				}
+				return templates.get(index) + input.readUTF();
+		}
+	}
+
+	/**
+	 * Loads an item from the item cache or while coalescing concurrent loads of the same identifier.
+	 * Callers which joined an already running load receive a copy of its item with cloned tracks.
+	 */
+	protected AudioItem loadItemOnce(String identifier, Supplier<AudioItem> loader) {
+		var key = normalizeIdentifier(identifier);
+		var cache = this.itemCache;
+		if (cache == null) {
+			return this.inFlightLoads.execute(key, loader, ExtendedAudioSourceManager::cloneItem);
+		}
+
+		var cached = cache.get(this, key);
+		if (cached != null) {
+			return cached;
+		}
+		return this.inFlightLoads.execute(key, () -> {
+			var item = loader.get();
+			if (item != null) {
+				cache.put(this, key, item);
+			}
+			return item;
+		}, ExtendedAudioSourceManager::cloneItem);
+	}
+
+	/**
+	 * Normalizes an identifier so share links of the same item map to the same key, by trimming it and removing fragments and the {@link #getTrackingParameters tracking query parameters}.
+	 */
+	public String normalizeIdentifier(String identifier) {
+		identifier = identifier.trim();
+		if (!identifier.startsWith("https://") && !identifier.startsWith("http://")) {
+			return identifier;
+		}
+		var fragment = identifier.indexOf('#');
+		if (fragment != -1) {
+			identifier = identifier.substring(0, fragment);
+		}
+		var query = identifier.indexOf('?');
+		if (query == -1) {
+			return identifier;
+		}
+		var trackingParameters = this.getTrackingParameters();
+		var parameters = new StringJoiner("&");
+		for (var parameter : identifier.substring(query + 1).split("&")) {
+			var separator = parameter.indexOf('=');
+			var name = separator == -1 ? parameter : parameter.substring(0, separator);
+			if (!parameter.isEmpty() && !trackingParameters.contains(name)) {
+				parameters.add(parameter);
+			}
+		}
+		return parameters.length() == 0 ? identifier.substring(0, query) : identifier.substring(0, query + 1) + parameters;
+	}
+
+	/**
+	 * Clones the tracks of an item, so the same item can be handed out to multiple consumers.
+	 */
+	public static AudioItem cloneItem(AudioItem item) {
+		if (item instanceof AudioTrack) {
+			return ((AudioTrack) item).makeClone();
+		}
+		if (item instanceof ExtendedAudioPlaylist) {
+			return ((ExtendedAudioPlaylist) item).makeClone();
+		}
+		if (item instanceof AudioPlaylist) {
+			var playlist = (AudioPlaylist) item;
+			var tracks = new ArrayList<AudioTrack>(playlist.getTracks().size());
+			AudioTrack selectedTrack = null;
+			for (var track : playlist.getTracks()) {
+				var clone = track.makeClone();
+				if (track == playlist.getSelectedTrack()) {
+					selectedTrack = clone;
+				}
+				tracks.add(clone);
+			}
+			return new BasicAudioPlaylist(playlist.getName(), tracks, selectedTrack, playlist.isSearchResult());
+		}
+		return item;
+	}
+
 	@Override
 	public boolean isTrackEncodable(AudioTrack track) {
 		return true;
 	}
 
 	protected ExtendedAudioTrackInfo decodeTrack(DataInput input) throws IOException {
-		String albumName = null;
-		String albumUrl = null;
-		String artistUrl = null;
-		String artistArtworkUrl = null;
-		String previewUrl = null;
-		boolean isPreview = false;
-		// Check if the input has more than 8 bytes available, which would indicate that the preview field is present.
-		// This is done to avoid breaking backwards compatibility with tracks that were saved before the preview field was added.
-		if (((DataInputStream) input).available() > Long.BYTES) {
-			albumName = DataFormatTools.readNullableText(input);
-			albumUrl = DataFormatTools.readNullableText(input);
-			artistUrl = DataFormatTools.readNullableText(input);
-			artistArtworkUrl = DataFormatTools.readNullableText(input);
-			previewUrl = DataFormatTools.readNullableText(input);
-			isPreview = input.readBoolean();
-		}
-		return new ExtendedAudioTrackInfo(albumName, albumUrl, artistArtworkUrl, previewUrl, artistUrl, isPreview);
+		// Tracks which were saved before the extended fields were added only have the position lavaplayer writes after them left.
+		if (input instanceof DataInputStream && ((DataInputStream) input).available() <= Long.BYTES) {
+			return new ExtendedAudioTrackInfo(null, null, null, null, null, false, 0);
+		}
+
+		var first = input.readUnsignedByte();
+		if ((first & ENCODING_VERSION_FLAG) == 0) {
+			// version 1 starts right away with the album name, the first byte is its nullable text flag
+			var albumName = first != 0 ? input.readUTF() : null;
+			var albumUrl = DataFormatTools.readNullableText(input);
+			var artistUrl = DataFormatTools.readNullableText(input);
+			var artistArtworkUrl = DataFormatTools.readNullableText(input);
+			var previewUrl = DataFormatTools.readNullableText(input);
+			var isPreview = input.readBoolean();
+			return new ExtendedAudioTrackInfo(albumName, albumUrl, artistArtworkUrl, previewUrl, artistUrl, isPreview, 1);
+		}
+
+		var version = first & ~ENCODING_VERSION_FLAG;
+		if (version > ENCODING_VERSION) {
+			throw new IOException("Unsupported track encoding version " + version + " for " + this.getSourceName());
+		}
+		var albumName = DataFormatTools.readNullableText(input);
+		var albumUrl = this.readUrl(input);
+		var artistUrl = this.readUrl(input);
+		var artistArtworkUrl = this.readUrl(input);
+		var previewUrl = this.readUrl(input);
+		var isPreview = input.readBoolean();
+		return new ExtendedAudioTrackInfo(albumName, albumUrl, artistArtworkUrl, previewUrl, artistUrl, isPreview, version);
 	}
 
 	protected static class ExtendedAudioTrackInfo {
@@ -54,14 +272,21 @@ public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
 		public final String previewUrl;
 		public final String artistUrl;
 		public final boolean isPreview;
+		// the encoding version the fields were read from
+		public final int version;
 
 		public ExtendedAudioTrackInfo(String albumName, String albumUrl, String artistArtworkUrl, String previewUrl, String artistUrl, boolean isPreview) {
+			this(albumName, albumUrl, artistArtworkUrl, previewUrl, artistUrl, isPreview, ENCODING_VERSION);
+		}
+
+		public ExtendedAudioTrackInfo(String albumName, String albumUrl, String artistArtworkUrl, String previewUrl, String artistUrl, boolean isPreview, int version) {
 			this.albumName = albumName;
 			this.albumUrl = albumUrl;
 			this.artistArtworkUrl = artistArtworkUrl;
 			this.previewUrl = previewUrl;
 			this.artistUrl = artistUrl;
 			this.isPreview = isPreview;
+			this.version = version;
 		}
 	}
 }
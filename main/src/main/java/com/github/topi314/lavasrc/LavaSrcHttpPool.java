@@ -0,0 +1,133 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.ThreadLocalHttpInterfaceManager;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The connection pool the api requests of all LavaSrc sources share, so connections to the same hosts are reused and the number of open sockets stays bounded.
+ * Every source still gets its own {@link HttpInterfaceManager}, so it can be configured on its own, only the connections are shared.
+ * Audio streams don't use this pool, they hold their connection for the whole track and would starve the api requests to the same host.
+ * <p>
+ * Unless compression is disabled, every request advertises gzip and deflate and compressed responses are decompressed while they are read,
+ * so parsing can start before the whole body arrived.
+ * <p>
+ * {@link #configure} can only be called before the first source or client is created, since the pool can't be changed while it is in use.
+ */
+public class LavaSrcHttpPool {
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 200;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+	public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(30);
+	public static final Duration DEFAULT_CONNECTION_TTL = Duration.ofMinutes(5);
+	public static final Duration DEFAULT_CONNECTION_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+	// how long a pooled connection may be idle before it is checked before being reused
+	private static final int VALIDATE_AFTER_INACTIVITY = (int) TimeUnit.SECONDS.toMillis(2);
+	// like lavaplayer, retry requests once which failed because the server closed a pooled connection, the request never reached it then
+	private static final HttpRequestRetryHandler RETRY_HANDLER = (exception, executionCount, context) -> {
+		if (executionCount <= 1 && (exception instanceof NoHttpResponseException || (exception instanceof SocketException && "Connection reset".equals(exception.getMessage())))) {
+			return true;
+		}
+		return DefaultHttpRequestRetryHandler.INSTANCE.retryRequest(exception, executionCount, context);
+	};
+
+	private static int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	private static int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private static long keepAlive = DEFAULT_KEEP_ALIVE.toMillis();
+	private static long connectionTtl = DEFAULT_CONNECTION_TTL.toMillis();
+	private static int connectionRequestTimeout = (int) DEFAULT_CONNECTION_REQUEST_TIMEOUT.toMillis();
+	private static boolean compression = true;
+	private static PoolingHttpClientConnectionManager connectionManager;
+
+	private LavaSrcHttpPool() {
+	}
+
+	/**
+	 * @param maxConnections           the maximum number of open connections over all hosts
+	 * @param maxConnectionsPerRoute   the maximum number of open connections per host
+	 * @param keepAlive                how long an idle connection is kept open, unless the server asks for less
+	 * @param connectionTtl            the maximum lifetime of a connection, so dns changes are eventually picked up
+	 * @param connectionRequestTimeout how long a request waits for a free connection before it fails
+	 * @param compression              whether responses are requested compressed with gzip or deflate
+	 * @throws IllegalStateException if a source or client already uses the pool
+	 */
+	public static synchronized void configure(int maxConnections, int maxConnectionsPerRoute, Duration keepAlive, Duration connectionTtl, Duration connectionRequestTimeout, boolean compression) {
+		// the ttl can only be set when the pool is created, and closing it would break the sources which use it
+		if (connectionManager != null) {
+			throw new IllegalStateException("The http pool can only be configured before it is used");
+		}
+		LavaSrcHttpPool.maxConnections = maxConnections;
+		LavaSrcHttpPool.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		LavaSrcHttpPool.keepAlive = keepAlive.toMillis();
+		LavaSrcHttpPool.connectionTtl = connectionTtl.toMillis();
+		LavaSrcHttpPool.connectionRequestTimeout = (int) connectionRequestTimeout.toMillis();
+		LavaSrcHttpPool.compression = compression;
+	}
+
+	public static HttpInterfaceManager createDefaultThreadLocalManager() {
+		return new ThreadLocalHttpInterfaceManager(createHttpBuilder(), createRequestConfig());
+	}
+
+	public static HttpInterfaceManager createCookielessThreadLocalManager() {
+		return new ThreadLocalHttpInterfaceManager(createHttpBuilder().disableCookieManagement(), createRequestConfig());
+	}
+
+	/**
+	 * Creates a client on top of the shared pool for requests which are not sent by a source, closing it leaves the pool open.
+	 */
+	public static CloseableHttpClient createHttpClient() {
+		return createHttpBuilder().setDefaultRequestConfig(createRequestConfig()).build();
+	}
+
+	private static synchronized RequestConfig createRequestConfig() {
+		// without a timeout a request would wait forever for a connection of an exhausted pool
+		return RequestConfig.copy(HttpClientTools.DEFAULT_REQUEST_CONFIG)
+			.setConnectionRequestTimeout(connectionRequestTimeout)
+			.build();
+	}
+
+	private static synchronized HttpClientBuilder createHttpBuilder() {
+		if (connectionManager == null) {
+			var registry = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory())
+				.register("https", SSLConnectionSocketFactory.getSocketFactory())
+				.build();
+			connectionManager = new PoolingHttpClientConnectionManager(registry, null, null, null, connectionTtl, TimeUnit.MILLISECONDS);
+			connectionManager.setMaxTotal(maxConnections);
+			connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+			connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+		}
+
+		var keepAlive = LavaSrcHttpPool.keepAlive;
+		var builder = HttpClientBuilder.create()
+			.setConnectionManager(connectionManager)
+			// the pool outlives the clients of the sources, so closing a source must not close it
+			.setConnectionManagerShared(true)
+			.setRetryHandler(RETRY_HANDLER)
+			.setKeepAliveStrategy((response, context) -> {
+				var duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+				return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+			});
+		if (!compression) {
+			builder.disableContentCompression();
+		}
+		return builder;
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.github.topi314.lavasrc;
+
+import com.github.topi314.lavasrc.mirror.ProviderStats;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Receives measurements from LavaSrc, the default implementation ignores them.
+ * Set an implementation backed by a metrics library with {@link #set(LavaSrcMetrics)} to export them.
+ */
+public class LavaSrcMetrics {
+
+	public static final String OTHER_ENDPOINT = "other";
+
+	private static volatile LavaSrcMetrics instance = new LavaSrcMetrics();
+
+	@NotNull
+	public static LavaSrcMetrics get() {
+		return instance;
+	}
+
+	public static void set(@NotNull LavaSrcMetrics metrics) {
+		instance = metrics;
+	}
+
+	/**
+	 * @return whether measurements are exported, so callers can skip preparing them otherwise
+	 */
+	public boolean isEnabled() {
+		return false;
+	}
+
+	/**
+	 * Called for every api request a source sent.
+	 *
+	 * @param source     the name of the source
+	 * @param endpoint   the endpoint of the request, see {@link #endpoint(List, URI)}
+	 * @param statusCode the status code of the response, or 0 if the request failed without a response
+	 * @param duration   the time until the response arrived in nanoseconds
+	 */
+	public void onRequest(String source, String endpoint, int statusCode, long duration) {
+	}
+
+	/**
+	 * Called whenever a token was fetched.
+	 *
+	 * @param name     the name of the token
+	 * @param success  whether a token could be fetched
+	 * @param duration the time it took in nanoseconds
+	 */
+	public void onTokenRefresh(String name, boolean success, long duration) {
+	}
+
+	/**
+	 * Called for every search of a mirroring provider which was not cancelled.
+	 *
+	 * @param provider the provider as configured
+	 * @param outcome  whether the provider found something
+	 * @param duration the time it took in nanoseconds
+	 */
+	public void onMirrorSearch(String provider, ProviderStats.Outcome outcome, long duration) {
+	}
+
+	/**
+	 * Called when a decrypting stream is closed.
+	 *
+	 * @param source   the name of the source
+	 * @param bytes    the number of bytes read through the stream
+	 * @param duration the time spent decrypting in nanoseconds
+	 */
+	public void onDecrypt(String source, long bytes, long duration) {
+	}
+
+	/**
+	 * Turns the uri of a request into an endpoint label by matching it against the known endpoints of its source.
+	 * Endpoints are paths where segments in braces like {id} match any segment, optionally followed by #method for apis which tell the method via a query parameter.
+	 * Requests to unknown endpoints are reported as {@link #OTHER_ENDPOINT}, so user supplied path segments can't create new labels.
+	 */
+	public static String endpoint(List<String> endpoints, URI uri) {
+		var path = uri.getPath() == null ? "" : uri.getPath();
+		var segments = Arrays.stream(path.split("/")).filter(segment -> !segment.isEmpty()).toArray(String[]::new);
+		var method = queryParameter(uri, "method");
+		for (var endpoint : endpoints) {
+			if (matches(endpoint, segments, method)) {
+				return endpoint;
+			}
+		}
+		return OTHER_ENDPOINT;
+	}
+
+	private static boolean matches(String endpoint, String[] segments, @Nullable String method) {
+		var index = endpoint.indexOf('#');
+		if (index != -1 && !endpoint.substring(index + 1).equals(method)) {
+			return false;
+		}
+		var path = index == -1 ? endpoint : endpoint.substring(0, index);
+		var expected = Arrays.stream(path.split("/")).filter(segment -> !segment.isEmpty()).toArray(String[]::new);
+		if (expected.length != segments.length) {
+			return false;
+		}
+		for (var i = 0; i < expected.length; i++) {
+			if (!expected[i].startsWith("{") && !expected[i].equals(segments[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Nullable
+	private static String queryParameter(URI uri, String name) {
+		var query = uri.getRawQuery();
+		if (query == null) {
+			return null;
+		}
+		for (var parameter : query.split("&")) {
+			if (parameter.startsWith(name + "=")) {
+				return parameter.substring(name.length() + 1);
+			}
+		}
+		return null;
+	}
+
+}
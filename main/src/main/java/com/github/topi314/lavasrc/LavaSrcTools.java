@@ -5,6 +5,7 @@ import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -12,6 +13,7 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
@@ -21,28 +23,64 @@ public class LavaSrcTools {
 
 	private static final Logger log = LoggerFactory.getLogger(LavaSrcTools.class);
 
+	/**
+	 * The maximum number of bytes of a response body which are logged.
+	 */
+	public static final int MAX_LOGGED_BODY_SIZE = 8192;
+
 	@Nullable
 	public static JsonBrowser fetchResponseAsJson(HttpInterface httpInterface, HttpUriRequest request) throws IOException {
 		try (CloseableHttpResponse response = httpInterface.execute(request)) {
-			int statusCode = response.getStatusLine().getStatusCode();
-
-			if (statusCode == HttpStatus.SC_NOT_FOUND) {
-				var data = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
-				log.error("Server responded with not found to '{}': {}", request.getURI(), data);
-				return null;
-			} else if (statusCode == HttpStatus.SC_NO_CONTENT) {
-				log.error("Server responded with not content to '{}'", request.getURI());
-				return null;
-			} else if (!HttpClientTools.isSuccessWithContent(statusCode)) {
-				var data = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
-				log.error("Server responded with an error to '{}': {}", request.getURI(), data);
-				throw new FriendlyException("Server responded with an error.", SUSPICIOUS,
-					new IllegalStateException("Response code from channel info is " + statusCode));
-			}
-
-			var data = IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
-			log.debug("Response from '{}' was successful: {}", request.getURI(), data);
-			return JsonBrowser.parse(data);
+			return parseResponseAsJson(request, response);
+		}
+	}
+
+	/**
+	 * Parses the body of an already executed request, responses without content are logged and return null while errors throw.
+	 */
+	@Nullable
+	public static JsonBrowser parseResponseAsJson(HttpUriRequest request, CloseableHttpResponse response) throws IOException {
+		int statusCode = response.getStatusLine().getStatusCode();
+
+		if (statusCode == HttpStatus.SC_NOT_FOUND) {
+			log.error("Server responded with not found to '{}': {}", request.getURI(), readBody(response.getEntity(), MAX_LOGGED_BODY_SIZE));
+			return null;
+		} else if (statusCode == HttpStatus.SC_NO_CONTENT) {
+			log.error("Server responded with not content to '{}'", request.getURI());
+			return null;
+		} else if (!HttpClientTools.isSuccessWithContent(statusCode)) {
+			log.error("Server responded with an error to '{}': {}", request.getURI(), readBody(response.getEntity(), MAX_LOGGED_BODY_SIZE));
+			throw new FriendlyException("Server responded with an error.", SUSPICIOUS,
+				new IllegalStateException("Response code from channel info is " + statusCode));
+		}
+
+		if (log.isDebugEnabled()) {
+			var data = IOUtils.toByteArray(response.getEntity().getContent());
+			log.debug("Response from '{}' was successful: {}", request.getURI(), truncate(data, data.length, MAX_LOGGED_BODY_SIZE));
+			return JsonBrowser.parse(new ByteArrayInputStream(data));
+		}
+		// parse straight from the stream, so large responses don't have to be copied into a string first
+		return JsonBrowser.parse(response.getEntity().getContent());
+	}
+
+	/**
+	 * Reads at most maxSize bytes of the entity for logging purposes.
+	 */
+	public static String readBody(@Nullable HttpEntity entity, int maxSize) throws IOException {
+		if (entity == null) {
+			return "";
+		}
+		try (var in = entity.getContent()) {
+			var buffer = new byte[maxSize + 1];
+			var length = IOUtils.read(in, buffer);
+			return truncate(buffer, length, maxSize);
+		}
+	}
+
+	private static String truncate(byte[] data, int length, int maxSize) {
+		if (length <= maxSize) {
+			return new String(data, 0, length, StandardCharsets.UTF_8);
 		}
+		return new String(data, 0, maxSize, StandardCharsets.UTF_8) + "... (truncated)";
 	}
 }
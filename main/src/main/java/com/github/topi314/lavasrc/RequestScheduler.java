@@ -0,0 +1,274 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.sedmelluq.discord.lavaplayer.tools.FriendlyException.Severity.COMMON;
+
+/**
+ * Schedules the api requests of a single source, so we stay below its rate limit and back off while it throttles us.
+ * Requests wait for a token of a token bucket and for any Retry-After the api sent. Requests which would have to wait
+ * longer than the max wait fail instead of piling up. If a {@link CircuitBreaker} is given, requests fail right away while it is open.
+ */
+public class RequestScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(RequestScheduler.class);
+
+	public static final int STATUS_TOO_MANY_REQUESTS = 429;
+	public static final double DEFAULT_RATE = 10;
+	public static final int DEFAULT_BURST = 10;
+	public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(10);
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	private static final long MIN_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+	private static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+
+	private final String name;
+	private final List<String> endpoints;
+	@Nullable
+	private final CircuitBreaker circuitBreaker;
+	// null if requests are not rate limited
+	private volatile TokenBucket bucket = new TokenBucket(DEFAULT_RATE, DEFAULT_BURST);
+	private volatile long maxWait = DEFAULT_MAX_WAIT.toMillis();
+	private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+	// wall clock time until which the api asked us to not send any requests
+	private final AtomicLong throttledUntil = new AtomicLong();
+	private final AtomicInteger consecutiveRateLimits = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong rateLimited = new AtomicLong();
+
+	/**
+	 * @param name the name of the source, used for metrics
+	 */
+	public RequestScheduler(String name) {
+		this(name, List.of(), null);
+	}
+
+	/**
+	 * @param endpoints the api endpoints of the source requests are reported as, see {@link LavaSrcMetrics#endpoint(List, URI)}
+	 */
+	public RequestScheduler(String name, List<String> endpoints, @Nullable CircuitBreaker circuitBreaker) {
+		this.name = name;
+		this.endpoints = endpoints;
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	@Nullable
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
+	/**
+	 * @param ratePerSecond the number of requests per second, 0 to not limit requests
+	 * @param burst         the number of requests which can be sent at once after being idle
+	 */
+	public void setRate(double ratePerSecond, int burst) {
+		this.bucket = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, Math.max(1, burst)) : null;
+	}
+
+	public double getRate() {
+		var bucket = this.bucket;
+		return bucket == null ? 0 : bucket.getRate();
+	}
+
+	/**
+	 * Sets how long a request may wait for the rate limit before it fails.
+	 */
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait.toMillis();
+	}
+
+	/**
+	 * Sets how often a request is retried after the api responded with 429 Too Many Requests.
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @return whether the api currently asked us to not send any requests
+	 */
+	public boolean isThrottled() {
+		return this.getRetryAfter() > 0;
+	}
+
+	/**
+	 * @return the milliseconds until requests are sent again, 0 if we are not throttled
+	 */
+	public long getRetryAfter() {
+		return Math.max(0, this.throttledUntil.get() - System.currentTimeMillis());
+	}
+
+	/**
+	 * @return the number of requests currently waiting for the rate limit
+	 */
+	public int getQueued() {
+		return this.queued.get();
+	}
+
+	/**
+	 * @return the number of 429 Too Many Requests responses received so far
+	 */
+	public long getRateLimited() {
+		return this.rateLimited.get();
+	}
+
+	/**
+	 * Executes the request once the rate limit allows it and parses its response like {@link LavaSrcTools#fetchResponseAsJson}.
+	 * Requests which are answered with 429 Too Many Requests are retried after the time the api asked for.
+	 */
+	@Nullable
+	public JsonBrowser fetchResponseAsJson(HttpInterface httpInterface, HttpUriRequest request) throws IOException {
+		var deadline = System.currentTimeMillis() + this.maxWait;
+		for (var attempt = 0; ; attempt++) {
+			var permission = this.circuitBreaker == null ? 0 : this.circuitBreaker.tryAcquirePermission();
+			if (permission == CircuitBreaker.NOT_PERMITTED) {
+				throw new FriendlyException(request.getURI().getHost() + " is currently unavailable, try again later.", COMMON, null);
+			}
+			try {
+				this.await(request, deadline);
+			} catch (IOException | RuntimeException e) {
+				if (this.circuitBreaker != null) {
+					this.circuitBreaker.onIgnored(permission);
+				}
+				throw e;
+			}
+
+			var start = System.nanoTime();
+			CloseableHttpResponse response;
+			try {
+				response = httpInterface.execute(request);
+			} catch (IOException | RuntimeException e) {
+				this.recordRequest(request, 0, System.nanoTime() - start);
+				if (this.circuitBreaker != null) {
+					this.circuitBreaker.onFailure(permission, System.nanoTime() - start);
+				}
+				throw e;
+			}
+
+			try (response) {
+				var statusCode = response.getStatusLine().getStatusCode();
+				this.recordRequest(request, statusCode, System.nanoTime() - start);
+				if (statusCode != STATUS_TOO_MANY_REQUESTS) {
+					if (this.circuitBreaker != null) {
+						// client errors mean the api works, so only server errors count as failures
+						if (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+							this.circuitBreaker.onFailure(permission, System.nanoTime() - start);
+						} else {
+							this.circuitBreaker.onSuccess(permission, System.nanoTime() - start);
+						}
+					}
+					this.consecutiveRateLimits.set(0);
+					return LavaSrcTools.parseResponseAsJson(request, response);
+				}
+
+				if (this.circuitBreaker != null) {
+					this.circuitBreaker.onIgnored(permission);
+				}
+				var retryAfter = this.onRateLimited(response);
+				EntityUtils.consumeQuietly(response.getEntity());
+				if (attempt >= this.maxRetries) {
+					throw this.rateLimitedException(request);
+				}
+				log.warn("Rate limited by '{}', retrying in {}ms", request.getURI().getHost(), retryAfter);
+			}
+		}
+	}
+
+	private void recordRequest(HttpUriRequest request, int statusCode, long duration) {
+		var metrics = LavaSrcMetrics.get();
+		if (metrics.isEnabled()) {
+			metrics.onRequest(this.name, LavaSrcMetrics.endpoint(this.endpoints, request.getURI()), statusCode, duration);
+		}
+	}
+
+	private void await(HttpUriRequest request, long deadline) throws IOException {
+		this.queued.incrementAndGet();
+		try {
+			// the throttle can be extended by other requests while we wait
+			while (true) {
+				var throttledUntil = this.throttledUntil.get();
+				if (throttledUntil > deadline) {
+					throw this.rateLimitedException(request);
+				}
+				var now = System.currentTimeMillis();
+				if (throttledUntil <= now) {
+					break;
+				}
+				Thread.sleep(throttledUntil - now);
+			}
+
+			var bucket = this.bucket;
+			if (bucket != null && !bucket.tryAcquire(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+				throw this.rateLimitedException(request);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the rate limit", e);
+		} finally {
+			this.queued.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Throttles all requests for the time the api asked for, or with an exponential backoff with jitter if it did not say.
+	 *
+	 * @return the milliseconds requests are throttled for
+	 */
+	private long onRateLimited(HttpResponse response) {
+		this.rateLimited.incrementAndGet();
+		var consecutive = this.consecutiveRateLimits.getAndIncrement();
+		var retryAfter = parseRetryAfter(response);
+		if (retryAfter < 0) {
+			var backoff = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(consecutive, 16));
+			retryAfter = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+		}
+		var until = System.currentTimeMillis() + retryAfter;
+		this.throttledUntil.accumulateAndGet(until, Math::max);
+		return retryAfter;
+	}
+
+	/**
+	 * @return the milliseconds of the Retry-After header, which is either in seconds or a date, or -1 if it is missing or invalid
+	 */
+	private static long parseRetryAfter(HttpResponse response) {
+		var header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+		if (header == null || header.getValue() == null) {
+			return -1;
+		}
+		var value = header.getValue().trim();
+		try {
+			return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+		} catch (NumberFormatException ignored) {
+		}
+		var date = DateUtils.parseDate(value);
+		if (date == null) {
+			return -1;
+		}
+		return Math.max(0, date.getTime() - System.currentTimeMillis());
+	}
+
+	private FriendlyException rateLimitedException(HttpUriRequest request) {
+		return new FriendlyException("Rate limited by " + request.getURI().getHost() + ", try again later.", COMMON, null);
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.github.topi314.lavasrc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls for the same key, so only the first caller runs the loader
+ * while everybody else waits for its result.
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Runs the loader for the key unless a load for the same key is already in flight.
+	 *
+	 * @param key    the key identifying the load
+	 * @param loader loads the value, only called by the first caller
+	 * @param copier copies the shared value for every caller which joined an in flight load
+	 * @return the loaded value
+	 */
+	public V execute(K key, Supplier<V> loader, UnaryOperator<V> copier) {
+		var future = new CompletableFuture<V>();
+		var existing = this.inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			try {
+				return copier.apply(existing.join());
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		try {
+			var value = loader.get();
+			future.complete(value);
+			return value;
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.inFlight.remove(key, future);
+		}
+	}
+
+	public int size() {
+		return this.inFlight.size();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.github.topi314.lavasrc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread-safe token bucket which allows bursts up to its capacity and refills at a fixed rate.
+ */
+public class TokenBucket {
+
+	private final double capacity;
+	private volatile double ratePerNano;
+	private double tokens;
+	private long lastRefill;
+
+	/**
+	 * @param ratePerSecond how many tokens are added per second
+	 * @param capacity      the maximum number of tokens, the bucket starts full
+	 */
+	public TokenBucket(double ratePerSecond, double capacity) {
+		this.capacity = capacity;
+		this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	public void setRate(double ratePerSecond) {
+		synchronized (this) {
+			this.refill();
+			this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+		}
+	}
+
+	public double getRate() {
+		return this.ratePerNano * TimeUnit.SECONDS.toNanos(1);
+	}
+
+	/**
+	 * Takes a token, waiting until one is available.
+	 */
+	public void acquire() throws InterruptedException {
+		while (true) {
+			long wait;
+			synchronized (this) {
+				this.refill();
+				if (this.tokens >= 1) {
+					this.tokens--;
+					return;
+				}
+				wait = (long) Math.ceil((1 - this.tokens) / this.ratePerNano);
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.max(wait, 1));
+		}
+	}
+
+	/**
+	 * Takes a token, waiting at most the given time until one is available.
+	 *
+	 * @return whether a token was taken
+	 */
+	public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+		var deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (true) {
+			long wait;
+			synchronized (this) {
+				this.refill();
+				if (this.tokens >= 1) {
+					this.tokens--;
+					return true;
+				}
+				wait = (long) Math.ceil((1 - this.tokens) / this.ratePerNano);
+			}
+			var remaining = deadline - System.nanoTime();
+			if (wait > remaining) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.max(wait, 1));
+		}
+	}
+
+	/**
+	 * Takes a token if one is available right away.
+	 */
+	public synchronized boolean tryAcquire() {
+		this.refill();
+		if (this.tokens >= 1) {
+			this.tokens--;
+			return true;
+		}
+		return false;
+	}
+
+	private void refill() {
+		var now = System.nanoTime();
+		this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) * this.ratePerNano);
+		this.lastRefill = now;
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps an access token fresh by renewing it on a shared background thread a configurable margin before it expires.
+ * Only the very first request, or requests after the token expired because every refresh failed, fetch a token themselves.
+ */
+public class TokenRefresher {
+
+	public static final Duration DEFAULT_REFRESH_MARGIN = Duration.ofMinutes(5);
+	private static final Logger log = LoggerFactory.getLogger(TokenRefresher.class);
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("lavasrc-token-refresh"));
+	private static final long MIN_REFRESH_DELAY = TimeUnit.SECONDS.toMillis(10);
+	private static final long MIN_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+	private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(2);
+
+	private final String name;
+	private final Fetcher fetcher;
+	private final AtomicReference<Token> token = new AtomicReference<>();
+	private volatile Duration refreshMargin;
+	private ScheduledFuture<?> scheduledRefresh;
+	private int failures;
+	private boolean closed;
+
+	public TokenRefresher(String name, Fetcher fetcher) {
+		this(name, fetcher, DEFAULT_REFRESH_MARGIN);
+	}
+
+	/**
+	 * @param name          a name for the token used in log messages
+	 * @param fetcher       fetches a new token
+	 * @param refreshMargin how long before the token expires it should be renewed, at most half of the lifetime of the token is used
+	 */
+	public TokenRefresher(String name, Fetcher fetcher, Duration refreshMargin) {
+		this.name = name;
+		this.fetcher = fetcher;
+		this.refreshMargin = refreshMargin;
+	}
+
+	public void setRefreshMargin(Duration refreshMargin) {
+		this.refreshMargin = refreshMargin;
+	}
+
+	/**
+	 * Returns the current token, this only blocks if there is no valid token yet.
+	 */
+	public String getToken() throws IOException {
+		var current = this.token.get();
+		if (current != null && !current.isExpired()) {
+			return current.value;
+		}
+		synchronized (this) {
+			current = this.token.get();
+			if (current != null && !current.isExpired()) {
+				return current.value;
+			}
+			return this.refresh().value;
+		}
+	}
+
+	/**
+	 * Fetches a new token right away and schedules its renewal.
+	 */
+	public synchronized Token refresh() throws IOException {
+		var start = System.nanoTime();
+		Token newToken;
+		try {
+			newToken = this.fetcher.fetch();
+		} catch (IOException | RuntimeException e) {
+			LavaSrcMetrics.get().onTokenRefresh(this.name, false, System.nanoTime() - start);
+			throw e;
+		}
+		LavaSrcMetrics.get().onTokenRefresh(this.name, true, System.nanoTime() - start);
+		this.token.set(newToken);
+		this.failures = 0;
+		var lifetime = Duration.between(Instant.now(), newToken.expires);
+		var margin = this.refreshMargin;
+		// a margin as long as the lifetime would refetch the token all the time
+		if (!lifetime.isNegative() && margin.compareTo(lifetime.dividedBy(2)) > 0) {
+			log.warn("Refresh margin of {} is too long for {} which is valid for {}, renewing it after half its lifetime instead", margin, this.name, lifetime);
+			margin = lifetime.dividedBy(2);
+		}
+		var delay = lifetime.minus(margin).toMillis();
+		this.schedule(Math.max(delay, MIN_REFRESH_DELAY));
+		return newToken;
+	}
+
+	/**
+	 * Drops the current token, the next {@link #getToken()} fetches a new one.
+	 */
+	public synchronized void invalidate() {
+		this.token.set(null);
+		this.cancel();
+	}
+
+	public synchronized void close() {
+		this.closed = true;
+		this.token.set(null);
+		this.cancel();
+	}
+
+	private void refreshInBackground() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			try {
+				this.refresh();
+				log.debug("Refreshed {}", this.name);
+			} catch (Exception e) {
+				// keep serving the current token until it expires and retry with exponential backoff
+				var delay = Math.min(MAX_RETRY_DELAY, MIN_RETRY_DELAY << Math.min(this.failures++, 16));
+				log.warn("Failed to refresh {}, retrying in {}ms", this.name, delay, e);
+				this.schedule(delay);
+			}
+		}
+	}
+
+	private void schedule(long delay) {
+		this.cancel();
+		if (!this.closed) {
+			this.scheduledRefresh = scheduler.schedule(this::refreshInBackground, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void cancel() {
+		if (this.scheduledRefresh != null) {
+			this.scheduledRefresh.cancel(false);
+			this.scheduledRefresh = null;
+		}
+	}
+
+	@FunctionalInterface
+	public interface Fetcher {
+		Token fetch() throws IOException;
+	}
+
+	public static class Token {
+
+		public final String value;
+		public final Instant expires;
+
+		public Token(String value, Instant expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+
+		public boolean isExpired() {
+			return this.value == null || this.expires == null || this.expires.isBefore(Instant.now());
+		}
+
+	}
+
+}
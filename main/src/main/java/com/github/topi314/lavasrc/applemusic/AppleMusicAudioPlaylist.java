@@ -11,4 +11,9 @@ public class AppleMusicAudioPlaylist extends ExtendedAudioPlaylist {
 		super(name, tracks, type, identifier, artworkURL, author, totalTracks);
 	}
 
+	@Override
+	public AppleMusicAudioPlaylist withTracks(List<AudioTrack> tracks) {
+		return new AppleMusicAudioPlaylist(this.getName(), tracks, this.type, this.url, this.artworkURL, this.author, this.totalTracks);
+	}
+
 }
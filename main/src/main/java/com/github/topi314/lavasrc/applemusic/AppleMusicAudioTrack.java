@@ -25,7 +25,7 @@ public class AppleMusicAudioTrack extends MirroringAudioTrack {
 
 	@Override
 	protected AudioTrack makeShallowClone() {
-		return new AppleMusicAudioTrack(this.trackInfo, (AppleMusicSourceManager) this.sourceManager);
+		return new AppleMusicAudioTrack(this.trackInfo, this.albumName, this.albumUrl, this.artistUrl, this.artistArtworkUrl, this.previewUrl, this.isPreview, this.sourceManager);
 	}
 
 }
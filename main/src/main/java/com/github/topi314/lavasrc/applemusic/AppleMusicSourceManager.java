@@ -8,7 +8,6 @@ import com.github.topi314.lavasearch.result.AudioText;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioText;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
-import com.github.topi314.lavasrc.LavaSrcTools;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
 import com.github.topi314.lavasrc.mirror.MirroringAudioTrackResolver;
@@ -52,6 +51,30 @@ public class AppleMusicSourceManager extends MirroringAudioSourceManager impleme
 	public static final String API_BASE = "https://api.music.apple.com/v1/";
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST, AudioSearchResult.Type.TEXT);
 	public static final Set<AudioSearchResult.Type> TOP_RESULT_SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST);
+	public static final double REQUEST_RATE = 20;
+	public static final int REQUEST_BURST = 20;
+	// only ever append to this list, encoded tracks refer to the templates by index
+	public static final List<String> URL_TEMPLATES = List.of(
+		"https://music.apple.com/",
+		"https://is1-ssl.mzstatic.com/image/thumb/",
+		"https://is2-ssl.mzstatic.com/image/thumb/",
+		"https://is3-ssl.mzstatic.com/image/thumb/",
+		"https://is4-ssl.mzstatic.com/image/thumb/",
+		"https://is5-ssl.mzstatic.com/image/thumb/",
+		"https://audio-ssl.itunes.apple.com/itunes-assets/"
+	);
+	public static final List<String> API_ENDPOINTS = List.of(
+		"/v1/catalog/{storefront}/search",
+		"/v1/catalog/{storefront}/search/suggestions",
+		"/v1/catalog/{storefront}/songs/{id}",
+		"/v1/catalog/{storefront}/albums/{id}",
+		"/v1/catalog/{storefront}/albums/{id}/tracks",
+		"/v1/catalog/{storefront}/playlists/{id}",
+		"/v1/catalog/{storefront}/playlists/{id}/tracks",
+		"/v1/catalog/{storefront}/artists",
+		"/v1/catalog/{storefront}/artists/{id}",
+		"/v1/catalog/{storefront}/artists/{id}/view/top-songs"
+	);
 
 	private final String countryCode;
 	private int playlistPageLimit;
@@ -75,6 +98,7 @@ public class AppleMusicSourceManager extends MirroringAudioSourceManager impleme
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to initialize token manager", e);
 		}
+		this.requestScheduler.setRate(REQUEST_RATE, REQUEST_BURST);
 	}
 
 	public void setPlaylistPageLimit(int playlistPageLimit) {
@@ -99,10 +123,20 @@ public class AppleMusicSourceManager extends MirroringAudioSourceManager impleme
 		return "applemusic";
 	}
 
+	@Override
+	protected List<String> getUrlTemplates() {
+		return URL_TEMPLATES;
+	}
+
+	@Override
+	protected List<String> getApiEndpoints() {
+		return API_ENDPOINTS;
+	}
+
 	@Override
 	public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
 		var extendedAudioTrackInfo = super.decodeTrack(input);
-		return new AppleMusicAudioTrack(trackInfo,
+		var track = new AppleMusicAudioTrack(trackInfo,
 			extendedAudioTrackInfo.albumName,
 			extendedAudioTrackInfo.albumUrl,
 			extendedAudioTrackInfo.artistUrl,
@@ -111,6 +145,8 @@ public class AppleMusicSourceManager extends MirroringAudioSourceManager impleme
 			extendedAudioTrackInfo.isPreview,
 			this
 		);
+		track.setResolvedMirror(this.decodeResolvedMirror(input, extendedAudioTrackInfo));
+		return track;
 	}
 
 	@Override
@@ -129,8 +165,8 @@ public class AppleMusicSourceManager extends MirroringAudioSourceManager impleme
 	public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
 		var identifier = reference.identifier;
 		var preview = reference.identifier.startsWith(PREVIEW_PREFIX);
-
-		return this.loadItem(preview ? identifier.substring(PREVIEW_PREFIX.length()) : identifier, preview);
+		var id = preview ? identifier.substring(PREVIEW_PREFIX.length()) : identifier;
+		return this.loadItemOnce(identifier, () -> this.loadItem(id, preview));
 	}
 
 	public AudioItem loadItem(String identifier, boolean preview) {
@@ -275,7 +311,7 @@ public class AppleMusicSourceManager extends MirroringAudioSourceManager impleme
 		if (token.origin != null && !token.origin.isEmpty()) {
 			request.addHeader("Origin", "https://" + token.origin);
 		}
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return this.requestScheduler.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
 	}
 
 	public Map<String, String> getArtistCover(List<String> ids) throws IOException {
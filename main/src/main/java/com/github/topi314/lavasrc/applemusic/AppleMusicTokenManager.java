@@ -1,10 +1,10 @@
 package com.github.topi314.lavasrc.applemusic;
 
+import com.github.topi314.lavasrc.LavaSrcHttpPool;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.jsoup.Jsoup;
 
 import java.io.IOException;
@@ -55,7 +55,7 @@ public class AppleMusicTokenManager {
 	}
 
 	private void fetchNewToken() throws IOException {
-		try (var httpClient = HttpClients.createDefault()) {
+		try (var httpClient = LavaSrcHttpPool.createHttpClient()) {
 			var mainPageHtml = fetchHtml(httpClient, "https://music.apple.com");
 			var tokenScriptUrl = extractTokenScriptUrl(mainPageHtml);
 
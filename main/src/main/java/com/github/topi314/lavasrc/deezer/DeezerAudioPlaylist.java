@@ -11,4 +11,9 @@ public class DeezerAudioPlaylist extends ExtendedAudioPlaylist {
 		super(name, tracks, type, identifier, artworkURL, author, totalTracks);
 	}
 
+	@Override
+	public DeezerAudioPlaylist withTracks(List<AudioTrack> tracks) {
+		return new DeezerAudioPlaylist(this.getName(), tracks, this.type, this.url, this.artworkURL, this.author, this.totalTracks);
+	}
+
 }
@@ -7,7 +7,7 @@ import com.github.topi314.lavasearch.AudioSearchManager;
 import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
-import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.LavaSrcHttpPool;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
@@ -55,12 +55,41 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public static final String PRIVATE_API_BASE = "https://www.deezer.com/ajax/gw-light.php";
 	public static final String MEDIA_BASE = "https://media.deezer.com/v1";
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST);
+	public static final double REQUEST_RATE = 10;
+	public static final int REQUEST_BURST = 10;
+	// only ever append to this list, encoded tracks refer to the templates by index
+	public static final List<String> URL_TEMPLATES = List.of(
+		"https://www.deezer.com/album/",
+		"https://www.deezer.com/artist/",
+		"https://cdn-images.dzcdn.net/images/cover/",
+		"https://e-cdns-images.dzcdn.net/images/artist/",
+		"https://cdnt-preview.dzcdn.net/",
+		"https://cdns-preview-"
+	);
+	public static final List<String> API_ENDPOINTS = List.of(
+		"/2.0/search",
+		"/2.0/search/autocomplete",
+		"/2.0/track/{id}",
+		"/2.0/album/{id}",
+		"/2.0/album/{id}/tracks",
+		"/2.0/playlist/{id}",
+		"/2.0/playlist/{id}/tracks",
+		"/2.0/artist/{id}",
+		"/2.0/artist/{id}/top",
+		"/ajax/gw-light.php#deezer.ping",
+		"/ajax/gw-light.php#deezer.getUserData",
+		"/ajax/gw-light.php#song.getData",
+		"/ajax/gw-light.php#song.getLyrics",
+		"/ajax/gw-light.php#song.getSearchTrackMix",
+		"/v1/get_url"
+	);
 	private static final Logger log = LoggerFactory.getLogger(DeezerAudioSourceManager.class);
 
 	private final String masterDecryptionKey;
 	private String arl;
 	private DeezerAudioTrack.TrackFormat[] formats;
 	private final HttpInterfaceManager httpInterfaceManager;
+	private final HttpInterfaceManager streamHttpInterfaceManager;
 	private Tokens tokens;
 
 	public DeezerAudioSourceManager(String masterDecryptionKey) {
@@ -79,7 +108,9 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		this.masterDecryptionKey = masterDecryptionKey;
 		this.arl = arl != null && arl.isEmpty() ? null : arl;
 		this.formats = formats != null && formats.length > 0 ? formats : DeezerAudioTrack.TrackFormat.DEFAULT_FORMATS;
-		this.httpInterfaceManager = HttpClientTools.createCookielessThreadLocalManager();
+		this.httpInterfaceManager = LavaSrcHttpPool.createCookielessThreadLocalManager();
+		this.streamHttpInterfaceManager = HttpClientTools.createCookielessThreadLocalManager();
+		this.requestScheduler.setRate(REQUEST_RATE, REQUEST_BURST);
 	}
 
 	public void setFormats(DeezerAudioTrack.TrackFormat[] formats) {
@@ -106,14 +137,14 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 
 	private void refreshSession() throws IOException {
 		var getSessionID = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=deezer.ping&input=3&api_version=1.0&api_token=");
-		var json = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), getSessionID);
+		var json = this.requestScheduler.fetchResponseAsJson(this.getHttpInterface(), getSessionID);
 
 		checkResponse(json, "Failed to get session ID: ");
 		var sessionID = json.get("results").get("SESSION").text();
 
 		var getUserToken = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=deezer.getUserData&input=3&api_version=1.0&api_token=");
 		getUserToken.setHeader("Cookie", "sid=" + sessionID);
-		json = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), getUserToken);
+		json = this.requestScheduler.fetchResponseAsJson(this.getHttpInterface(), getUserToken);
 
 		checkResponse(json, "Failed to get user token: ");
 		this.tokens = new Tokens(
@@ -137,6 +168,16 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		return "deezer";
 	}
 
+	@Override
+	protected List<String> getUrlTemplates() {
+		return URL_TEMPLATES;
+	}
+
+	@Override
+	protected List<String> getApiEndpoints() {
+		return API_ENDPOINTS;
+	}
+
 	@Override
 	public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
 		var extendedAudioTrackInfo = super.decodeTrack(input);
@@ -229,7 +270,8 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
 		var identifier = reference.identifier;
 		var preview = reference.identifier.startsWith(PREVIEW_PREFIX);
-		return this.loadItem(preview ? identifier.substring(PREVIEW_PREFIX.length()) : identifier, preview);
+		var id = preview ? identifier.substring(PREVIEW_PREFIX.length()) : identifier;
+		return this.loadItemOnce(identifier, () -> this.loadItem(id, preview));
 	}
 
 	public AudioItem loadItem(String identifier, boolean preview) {
@@ -290,7 +332,7 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public JsonBrowser getJson(String uri) throws IOException {
 		var request = new HttpGet(uri);
 		request.setHeader("Accept", "application/json");
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return this.requestScheduler.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
 	}
 
 	private List<AudioTrack> parseTracks(JsonBrowser json, boolean preview) {
@@ -437,7 +479,7 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		var jsonPayload = String.format("{\"sng_id\": %s, \"start_with_input_track\": \"true\"}", query);
 		request.setEntity(new StringEntity(jsonPayload, StandardCharsets.UTF_8));
 
-		var result = LavaSrcTools.fetchResponseAsJson(this.getHttpInterface(), request);
+		var result = this.requestScheduler.fetchResponseAsJson(this.getHttpInterface(), request);
 		checkResponse(result, "Failed to get recommendations: ");
 
 		if (result.get("results").get("data").values().isEmpty()) {
@@ -539,6 +581,7 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public void shutdown() {
 		try {
 			this.httpInterfaceManager.close();
+			this.streamHttpInterfaceManager.close();
 		} catch (IOException e) {
 			log.error("Failed to close HTTP interface manager", e);
 		}
@@ -547,11 +590,13 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	@Override
 	public void configureRequests(Function<RequestConfig, RequestConfig> configurator) {
 		this.httpInterfaceManager.configureRequests(configurator);
+		this.streamHttpInterfaceManager.configureRequests(configurator);
 	}
 
 	@Override
 	public void configureBuilder(Consumer<HttpClientBuilder> configurator) {
 		this.httpInterfaceManager.configureBuilder(configurator);
+		this.streamHttpInterfaceManager.configureBuilder(configurator);
 	}
 
 	public String getMasterDecryptionKey() {
@@ -571,6 +616,10 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		return this.httpInterfaceManager.getInterface();
 	}
 
+	public HttpInterface getStreamHttpInterface() {
+		return this.streamHttpInterfaceManager.getInterface();
+	}
+
 	public static class Tokens {
 		public String sessionId;
 		public String api;
@@ -1,7 +1,6 @@
 package com.github.topi314.lavasrc.deezer;
 
 import com.github.topi314.lavasrc.ExtendedAudioTrack;
-import com.github.topi314.lavasrc.LavaSrcTools;
 import com.sedmelluq.discord.lavaplayer.container.flac.FlacAudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.mp3.Mp3AudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.mpeg.MpegAudioTrack;
@@ -66,7 +65,7 @@ public class DeezerAudioTrack extends ExtendedAudioTrack {
 				request.setHeader("Cookie", "arl=" + this.sourceManager.getArl());
 			}
 
-			return LavaSrcTools.fetchResponseAsJson(httpInterface, request);
+			return this.sourceManager.getRequestScheduler().fetchResponseAsJson(httpInterface, request);
 		}
 	}
 
@@ -139,7 +138,7 @@ public class DeezerAudioTrack extends ExtendedAudioTrack {
 
 	@Override
 	public void process(LocalAudioTrackExecutor executor) throws Exception {
-		try (var httpInterface = this.sourceManager.getHttpInterface()) {
+		try (var httpInterface = this.sourceManager.getStreamHttpInterface()) {
 			if (this.isPreview) {
 				if (this.previewUrl == null) {
 					throw new FriendlyException("No preview url found", FriendlyException.Severity.COMMON, new IllegalArgumentException());
@@ -1,6 +1,6 @@
 package com.github.topi314.lavasrc.deezer;
 
-import com.sedmelluq.discord.lavaplayer.tools.io.ByteBufferInputStream;
+import com.github.topi314.lavasrc.LavaSrcMetrics;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
 import org.apache.http.HttpResponse;
@@ -9,16 +9,17 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
 
 public class DeezerPersistentHttpStream extends PersistentHttpStream {
 
@@ -40,16 +41,17 @@ public class DeezerPersistentHttpStream extends PersistentHttpStream {
 		private static final byte[] iv = new byte[]{0, 1, 2, 3, 4, 5, 6, 7};
 
 		private final InputStream in;
-		private final ByteBuffer buff;
-		private final InputStream out;
+		private final byte[] chunk = new byte[BLOCK_SIZE];
 		private final Cipher cipher;
 		private long i;
-		private boolean filled;
+		private int chunkLength;
+		private int chunkOffset;
+		// reported to the metrics when the stream is closed
+		private long bytesRead;
+		private long decryptTime;
 
 		public DecryptingInputStream(InputStream in, byte[] keyMaterial, long position) throws IOException {
 			this.in = new BufferedInputStream(in);
-			this.buff = ByteBuffer.allocate(BLOCK_SIZE);
-			this.out = new ByteBufferInputStream(this.buff);
 
 			try {
 				cipher = Cipher.getInstance("Blowfish/CBC/NoPadding");
@@ -67,28 +69,66 @@ public class DeezerPersistentHttpStream extends PersistentHttpStream {
 			}
 		}
 
+		/**
+		 * Reads the next chunk into the reusable chunk buffer and decrypts every third full chunk in place.
+		 */
+		private boolean fillChunk() throws IOException {
+			var length = this.in.readNBytes(this.chunk, 0, BLOCK_SIZE);
+			if (this.i % 3 == 0 && length == BLOCK_SIZE) {
+				var start = System.nanoTime();
+				try {
+					this.cipher.doFinal(this.chunk, 0, BLOCK_SIZE, this.chunk, 0);
+				} catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+					throw new RuntimeException(e);
+				}
+				this.decryptTime += System.nanoTime() - start;
+			}
+			this.bytesRead += length;
+			this.i++;
+			this.chunkLength = length;
+			this.chunkOffset = 0;
+			return length > 0;
+		}
+
 		@Override
 		public int read() throws IOException {
-			if (this.filled && this.out.available() > 0) {
-				return this.out.read();
+			if (this.chunkOffset >= this.chunkLength && !this.fillChunk()) {
+				return -1;
 			}
-			var chunk = this.in.readNBytes(BLOCK_SIZE);
-			this.buff.clear();
-			this.filled = true;
-			if (this.i % 3 > 0 || chunk.length < BLOCK_SIZE) {
-				this.buff.put(chunk);
-			} else {
-				byte[] decryptedChunk;
-				try {
-					decryptedChunk = this.cipher.doFinal(chunk);
-				} catch (IllegalBlockSizeException | BadPaddingException e) {
-					throw new RuntimeException(e);
+			return this.chunk[this.chunkOffset++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+
+			var read = 0;
+			while (read < len) {
+				if (this.chunkOffset >= this.chunkLength && !this.fillChunk()) {
+					break;
 				}
-				this.buff.put(decryptedChunk);
+				var length = Math.min(len - read, this.chunkLength - this.chunkOffset);
+				System.arraycopy(this.chunk, this.chunkOffset, b, off + read, length);
+				this.chunkOffset += length;
+				read += length;
 			}
-			i++;
-			this.buff.flip();
-			return this.out.read();
+			return read == 0 ? -1 : read;
+		}
+
+		@Override
+		public int available() {
+			return this.chunkLength - this.chunkOffset;
+		}
+
+		@Override
+		public void close() throws IOException {
+			LavaSrcMetrics.get().onDecrypt("deezer", this.bytesRead, this.decryptTime);
+			this.bytesRead = 0;
+			this.decryptTime = 0;
+			this.in.close();
 		}
 
 	}
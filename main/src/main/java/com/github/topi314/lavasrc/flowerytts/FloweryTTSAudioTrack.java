@@ -1,11 +1,13 @@
 package com.github.topi314.lavasrc.flowerytts;
 
+import com.github.topi314.lavasrc.CircuitBreaker;
 import com.sedmelluq.discord.lavaplayer.container.adts.AdtsAudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.flac.FlacAudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.mp3.Mp3AudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.ogg.OggAudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.wav.WavAudioTrack;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.Units;
 import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
@@ -13,6 +15,7 @@ import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
 import com.sedmelluq.discord.lavaplayer.track.DelegatedAudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.InternalAudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URIBuilder;
 import org.slf4j.Logger;
@@ -24,6 +27,8 @@ import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
+import static com.sedmelluq.discord.lavaplayer.tools.FriendlyException.Severity.COMMON;
+
 public class FloweryTTSAudioTrack extends DelegatedAudioTrack {
 	private static final Logger log = LoggerFactory.getLogger(FloweryTTSAudioTrack.class);
 
@@ -61,7 +66,26 @@ public class FloweryTTSAudioTrack extends DelegatedAudioTrack {
 			AudioFormat format = AudioFormat.getByName(audioFormat);
 			log.debug("Requesting TTS URL \"{}\"", url);
 
+			var circuitBreaker = this.sourceManager.getCircuitBreaker();
+			var permission = circuitBreaker.tryAcquirePermission();
+			if (permission == CircuitBreaker.NOT_PERMITTED) {
+				throw new FriendlyException("Flowery TTS is currently unavailable, try again later.", COMMON, null);
+			}
 			try (var stream = new PersistentHttpStream(httpInterface, url, Units.CONTENT_LENGTH_UNKNOWN)) {
+				var start = System.nanoTime();
+				int statusCode;
+				try {
+					statusCode = stream.checkStatusCode();
+				} catch (Exception e) {
+					circuitBreaker.onFailure(permission, System.nanoTime() - start);
+					throw e;
+				}
+				if (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+					circuitBreaker.onFailure(permission, System.nanoTime() - start);
+				} else {
+					circuitBreaker.onSuccess(permission, System.nanoTime() - start);
+				}
+
 				InternalAudioTrack track = format.trackFactory.apply(this.trackInfo, stream);
 				processDelegate(track, executor);
 			}
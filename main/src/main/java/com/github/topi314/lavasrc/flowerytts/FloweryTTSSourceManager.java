@@ -1,5 +1,6 @@
 package com.github.topi314.lavasrc.flowerytts;
 
+import com.github.topi314.lavasrc.CircuitBreaker;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.tools.Units;
@@ -37,6 +38,7 @@ public class FloweryTTSSourceManager implements AudioSourceManager, HttpConfigur
 
 	private String voice = null;
 	private final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker();
 	private boolean translate = false;
 	private int silence = 0;
 	private float speed = 1;
@@ -149,6 +151,10 @@ public class FloweryTTSSourceManager implements AudioSourceManager, HttpConfigur
 		this.httpInterfaceManager.configureBuilder(configurator);
 	}
 
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
 	public HttpInterface getHttpInterface() {
 		return this.httpInterfaceManager.getInterface();
 	}
@@ -0,0 +1,18 @@
+package com.github.topi314.lavasrc.mirror;
+
+/**
+ * Receives the progress of {@link MirroringAudioSourceManager#resolveAll}.
+ */
+@FunctionalInterface
+public interface BulkResolveListener {
+
+	/**
+	 * Called after every track, from the thread which resolved it.
+	 *
+	 * @param resolved how many tracks were resolved or already cached so far
+	 * @param failed   how many tracks could not be resolved so far
+	 * @param total    how many tracks are resolved in total
+	 */
+	void onProgress(int resolved, int failed, int total);
+
+}
@@ -0,0 +1,27 @@
+package com.github.topi314.lavasrc.mirror;
+
+public class BulkResolveResult {
+
+	private final int total;
+	private final int resolved;
+	private final int failed;
+
+	public BulkResolveResult(int total, int resolved, int failed) {
+		this.total = total;
+		this.resolved = resolved;
+		this.failed = failed;
+	}
+
+	public int getTotal() {
+		return this.total;
+	}
+
+	public int getResolved() {
+		return this.resolved;
+	}
+
+	public int getFailed() {
+		return this.failed;
+	}
+
+}
@@ -1,31 +1,224 @@
 package com.github.topi314.lavasrc.mirror;
 
+import com.github.topi314.lavasrc.LavaSrcMetrics;
 import com.github.topi314.lavasrc.applemusic.AppleMusicSourceManager;
 import com.github.topi314.lavasrc.spotify.SpotifySourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
 public class DefaultMirroringAudioTrackResolver implements MirroringAudioTrackResolver {
 
+	public static final long DEFAULT_PROVIDER_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+	public static final int ADAPTIVE_ORDER_MIN_SAMPLES = 20;
+	public static final double ADAPTIVE_ORDER_EXPLORE_RATE = 0.05;
 	private static final Logger log = LoggerFactory.getLogger(DefaultMirroringAudioTrackResolver.class);
 
 	private String[] providers = {
 		"ytsearch:\"" + MirroringAudioSourceManager.ISRC_PATTERN + "\"",
 		"ytsearch:" + MirroringAudioSourceManager.QUERY_PATTERN
 	};
+	private long hedgeDelay = -1;
+	private long providerTimeout = DEFAULT_PROVIDER_TIMEOUT;
+	private boolean adaptiveOrder;
+	private final Map<String, ProviderStats> providerStats = new LinkedHashMap<>();
 
 	public DefaultMirroringAudioTrackResolver(String[] providers) {
 		if (providers != null && providers.length > 0) {
 			this.providers = providers;
 		}
+		for (var provider : this.providers) {
+			this.providerStats.put(provider, new ProviderStats());
+		}
+	}
+
+	/**
+	 * Enables hedged resolution, where the next provider is started if the previous ones did not finish within the delay.
+	 * The result of the first provider in order which found something is used, and the loads of all other providers are cancelled.
+	 *
+	 * @param hedgeDelay the delay in milliseconds, 0 to start all providers at once or a negative value to try them one after another
+	 */
+	public void setHedgeDelay(long hedgeDelay) {
+		this.hedgeDelay = hedgeDelay;
+	}
+
+	public long getHedgeDelay() {
+		return this.hedgeDelay;
+	}
+
+	/**
+	 * Sets how long a single provider may take before its load is cancelled and it is treated as if it found nothing.
+	 *
+	 * @param providerTimeout the timeout in milliseconds, 0 or a negative value to wait indefinitely
+	 */
+	public void setProviderTimeout(long providerTimeout) {
+		this.providerTimeout = providerTimeout;
+	}
+
+	public long getProviderTimeout() {
+		return this.providerTimeout;
+	}
+
+	/**
+	 * Enables ordering the providers by their expected cost, which is their median latency divided by their success rate.
+	 * Providers are only reordered among providers of the same kind, so ISRC searches keep their place relative to the less exact query searches.
+	 * Providers which were not sampled a few times yet keep their configured position, the configured order also breaks ties and is used
+	 * for a small share of tracks, so the statistics of providers which are tried last stay up to date.
+	 * Providers which never found anything are tried last among their kind.
+	 */
+	public void setAdaptiveOrder(boolean adaptiveOrder) {
+		this.adaptiveOrder = adaptiveOrder;
+	}
+
+	public boolean isAdaptiveOrder() {
+		return this.adaptiveOrder;
+	}
+
+	/**
+	 * @return the rolling statistics of each provider in the configured order
+	 */
+	public Map<String, ProviderStats> getProviderStats() {
+		return Collections.unmodifiableMap(this.providerStats);
+	}
+
+	/**
+	 * @return the providers in the order they are currently tried in
+	 */
+	public List<String> getProviderOrder() {
+		var order = Arrays.asList(this.providers.clone());
+		if (!this.adaptiveOrder || ThreadLocalRandom.current().nextDouble() < ADAPTIVE_ORDER_EXPLORE_RATE) {
+			return order;
+		}
+		this.sortByCost(order, true);
+		this.sortByCost(order, false);
+		return order;
 	}
 
+	/**
+	 * Sorts the sampled providers of one kind by their expected cost within the positions they take up in the order.
+	 */
+	private void sortByCost(List<String> order, boolean isrc) {
+		var positions = new ArrayList<Integer>(order.size());
+		var sampled = new ArrayList<String>(order.size());
+		var costs = new HashMap<String, Double>(order.size());
+		for (var i = 0; i < order.size(); i++) {
+			var provider = order.get(i);
+			var stats = this.providerStats.get(provider);
+			if (provider.contains(MirroringAudioSourceManager.ISRC_PATTERN) != isrc || stats.getCount() < ADAPTIVE_ORDER_MIN_SAMPLES) {
+				continue;
+			}
+			positions.add(i);
+			sampled.add(provider);
+			costs.put(provider, stats.getExpectedCost());
+		}
+		// the sort is stable, so the configured order breaks ties
+		sampled.sort(Comparator.comparingDouble(costs::get));
+		for (var i = 0; i < positions.size(); i++) {
+			order.set(positions.get(i), sampled.get(i));
+		}
+	}
+
+	/**
+	 * Resolves the track, {@link AudioReference#NO_TRACK} is only returned if every provider was searched successfully without finding anything.
+	 *
+	 * @throws FriendlyException if nothing was found and at least one provider failed
+	 */
 	@Override
 	public AudioItem apply(MirroringAudioTrack mirroringAudioTrack) {
-		for (var provider : providers) {
+		try {
+			return this.applyAsync(mirroringAudioTrack).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public CompletableFuture<AudioItem> applyAsync(MirroringAudioTrack mirroringAudioTrack) {
+		var queries = this.getProviderQueries(mirroringAudioTrack);
+		if (queries.isEmpty()) {
+			return CompletableFuture.completedFuture(AudioReference.NO_TRACK);
+		}
+		if (this.hedgeDelay >= 0 && queries.size() > 1) {
+			return new HedgedResolution(mirroringAudioTrack, queries).start();
+		}
+		return this.applySequentially(mirroringAudioTrack, queries, 0, null);
+	}
+
+	private CompletableFuture<AudioItem> applySequentially(MirroringAudioTrack mirroringAudioTrack, List<ProviderQuery> queries, int index, Throwable error) {
+		if (index >= queries.size()) {
+			return error == null ? CompletableFuture.completedFuture(AudioReference.NO_TRACK) : CompletableFuture.failedFuture(searchFailed(error));
+		}
+		return this.loadItem(mirroringAudioTrack, queries.get(index))
+			.handle((item, e) -> e == null && isFound(item) ? CompletableFuture.completedFuture(item) : this.applySequentially(mirroringAudioTrack, queries, index + 1, e != null ? e : error))
+			.thenCompose(Function.identity());
+	}
+
+	private static FriendlyException searchFailed(Throwable cause) {
+		if (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return new FriendlyException("Failed to search for a mirror of the track", FriendlyException.Severity.SUSPICIOUS, cause);
+	}
+
+	private CompletableFuture<AudioItem> loadItem(MirroringAudioTrack mirroringAudioTrack, ProviderQuery query) {
+		var start = System.nanoTime();
+		var future = mirroringAudioTrack.loadItemAsync(query.query, this.providerTimeout);
+		future.whenComplete((item, e) -> {
+			if (future.isCancelled()) {
+				// cancelled hedged searches say nothing about the provider
+				return;
+			}
+			var duration = System.nanoTime() - start;
+			if (e instanceof TimeoutException) {
+				log.warn("Provider \"{}\" did not respond within {}ms!", query.query, this.providerTimeout);
+			} else if (e != null) {
+				log.error("Failed to load track from provider \"{}\"!", query.query, e);
+			}
+			var outcome = e != null ? ProviderStats.Outcome.ERROR : isFound(item) ? ProviderStats.Outcome.FOUND : ProviderStats.Outcome.NOT_FOUND;
+			this.providerStats.get(query.provider).record(outcome, TimeUnit.NANOSECONDS.toMillis(duration));
+			LavaSrcMetrics.get().onMirrorSearch(query.provider, outcome, duration);
+		});
+		return future;
+	}
+
+	private static AudioItem getResult(CompletableFuture<AudioItem> future) {
+		try {
+			return future.getNow(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static boolean isFound(AudioItem item) {
+		// If the track is an empty playlist, skip the provider
+		return item != null && item != AudioReference.NO_TRACK && !(item instanceof AudioPlaylist && ((AudioPlaylist) item).getTracks().isEmpty());
+	}
+
+	public List<String> getQueries(MirroringAudioTrack mirroringAudioTrack) {
+		var queries = new ArrayList<String>(this.providers.length);
+		for (var query : this.getProviderQueries(mirroringAudioTrack)) {
+			queries.add(query.query);
+		}
+		return queries;
+	}
+
+	private List<ProviderQuery> getProviderQueries(MirroringAudioTrack mirroringAudioTrack) {
+		var queries = new ArrayList<ProviderQuery>(this.providers.length);
+		for (var provider : this.getProviderOrder()) {
 			if (provider.startsWith(SpotifySourceManager.SEARCH_PREFIX)) {
 				log.warn("Can not use spotify search as search provider!");
 				continue;
@@ -36,32 +229,19 @@ public class DefaultMirroringAudioTrackResolver implements MirroringAudioTrackRe
 				continue;
 			}
 
-			if (provider.contains(MirroringAudioSourceManager.ISRC_PATTERN)) {
+			var query = provider;
+			if (query.contains(MirroringAudioSourceManager.ISRC_PATTERN)) {
 				if (mirroringAudioTrack.getInfo().isrc != null && !mirroringAudioTrack.getInfo().isrc.isEmpty()) {
-					provider = provider.replace(MirroringAudioSourceManager.ISRC_PATTERN, mirroringAudioTrack.getInfo().isrc);
+					query = query.replace(MirroringAudioSourceManager.ISRC_PATTERN, mirroringAudioTrack.getInfo().isrc);
 				} else {
 					log.debug("Ignoring identifier \"{}\" because this track does not have an ISRC!", provider);
 					continue;
 				}
 			}
 
-			provider = provider.replace(MirroringAudioSourceManager.QUERY_PATTERN, getTrackTitle(mirroringAudioTrack));
-
-			AudioItem item;
-			try {
-				item = mirroringAudioTrack.loadItem(provider);
-			} catch (Exception e) {
-				log.error("Failed to load track from provider \"{}\"!", provider, e);
-				continue;
-			}
-			// If the track is an empty playlist, skip the provider
-			if (item instanceof AudioPlaylist && ((AudioPlaylist) item).getTracks().isEmpty() || item == AudioReference.NO_TRACK) {
-				continue;
-			}
-			return item;
+			queries.add(new ProviderQuery(provider, query.replace(MirroringAudioSourceManager.QUERY_PATTERN, getTrackTitle(mirroringAudioTrack))));
 		}
-
-		return AudioReference.NO_TRACK;
+		return queries;
 	}
 
 	public String getTrackTitle(MirroringAudioTrack mirroringAudioTrack) {
@@ -72,4 +252,102 @@ public class DefaultMirroringAudioTrackResolver implements MirroringAudioTrackRe
 		return query;
 	}
 
+	/**
+	 * Starts the providers one after another, each one once all previous ones finished without a result or did not finish within the hedge delay.
+	 */
+	private class HedgedResolution {
+
+		private final MirroringAudioTrack mirroringAudioTrack;
+		private final List<ProviderQuery> queries;
+		private final List<CompletableFuture<AudioItem>> futures;
+		private final CompletableFuture<AudioItem> result = new CompletableFuture<>();
+
+		private HedgedResolution(MirroringAudioTrack mirroringAudioTrack, List<ProviderQuery> queries) {
+			this.mirroringAudioTrack = mirroringAudioTrack;
+			this.queries = queries;
+			this.futures = new ArrayList<>(queries.size());
+		}
+
+		private CompletableFuture<AudioItem> start() {
+			this.result.whenComplete((item, e) -> this.cancel());
+			this.startNext();
+			return this.result;
+		}
+
+		private synchronized void startNext() {
+			if (this.result.isDone() || this.futures.size() >= this.queries.size()) {
+				return;
+			}
+			var index = this.futures.size();
+			var future = DefaultMirroringAudioTrackResolver.this.loadItem(this.mirroringAudioTrack, this.queries.get(index));
+			this.futures.add(future);
+			if (index + 1 < this.queries.size()) {
+				CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(() -> this.onHedgeDelay(index));
+			}
+			future.whenComplete((item, e) -> this.update());
+		}
+
+		private synchronized void onHedgeDelay(int index) {
+			// only start the next provider if nothing else was started in the meantime and nothing was found yet
+			if (this.futures.size() != index + 1 || this.futures.stream().anyMatch(future -> isFound(getResult(future)))) {
+				return;
+			}
+			log.debug("Provider \"{}\" is slow, starting provider \"{}\"", this.queries.get(index).query, this.queries.get(index + 1).query);
+			this.startNext();
+		}
+
+		private synchronized void update() {
+			if (this.result.isDone()) {
+				return;
+			}
+			var pending = false;
+			for (var future : this.futures) {
+				if (!future.isDone()) {
+					pending = true;
+					continue;
+				}
+				var item = getResult(future);
+				if (isFound(item)) {
+					// use the result unless a provider with a higher priority is still loading
+					if (!pending) {
+						this.result.complete(item);
+					}
+					return;
+				}
+			}
+			if (pending) {
+				return;
+			}
+			if (this.futures.size() == this.queries.size()) {
+				var failed = this.futures.stream().filter(CompletableFuture::isCompletedExceptionally).findFirst();
+				if (failed.isPresent()) {
+					this.result.completeExceptionally(searchFailed(failed.get().handle((item, e) -> e).join()));
+				} else {
+					this.result.complete(AudioReference.NO_TRACK);
+				}
+				return;
+			}
+			this.startNext();
+		}
+
+		private synchronized void cancel() {
+			for (var future : this.futures) {
+				future.cancel(true);
+			}
+		}
+
+	}
+
+	private static class ProviderQuery {
+
+		private final String provider;
+		private final String query;
+
+		private ProviderQuery(String provider, String query) {
+			this.provider = provider;
+			this.query = query;
+		}
+
+	}
+
 }
@@ -0,0 +1,192 @@
+package com.github.topi314.lavasrc.mirror;
+
+import com.github.topi314.lavasrc.ExpiringLruCache;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * In memory LRU resolution cache with an optional append-only file which is replayed on startup.
+ * Each line of the file is {@code expiresAt \t key \t value}, an empty value removes the key.
+ * The file is compacted to the live entries when it is loaded and whenever it holds more than twice as many lines as there are live entries.
+ */
+public class DefaultMirroringResolutionCache implements MirroringResolutionCache {
+
+	// files with fewer lines are not compacted while running, rewriting them would not be worth it
+	public static final int COMPACT_MIN_LINES = 1000;
+	private static final Logger log = LoggerFactory.getLogger(DefaultMirroringResolutionCache.class);
+
+	private final ExpiringLruCache<String, String> cache;
+	private final Path file;
+	private BufferedWriter writer;
+	// the number of lines in the file, including overwritten and removed entries
+	private int lines;
+
+	public DefaultMirroringResolutionCache(int maxSize, long ttl) {
+		this(maxSize, ttl, null);
+	}
+
+	/**
+	 * @param maxSize the maximum number of resolutions kept
+	 * @param ttl     how long a resolution is valid in milliseconds
+	 * @param file    the file to persist resolutions to, or null to only keep them in memory
+	 */
+	public DefaultMirroringResolutionCache(int maxSize, long ttl, @Nullable Path file) {
+		this.cache = new ExpiringLruCache<>(maxSize, ttl);
+		this.file = file;
+		if (file != null) {
+			try {
+				this.load();
+			} catch (IOException e) {
+				log.error("Failed to load mirror resolution cache from {}", file, e);
+			}
+		}
+	}
+
+	private void load() throws IOException {
+		if (Files.exists(this.file)) {
+			try (var lines = Files.lines(this.file, StandardCharsets.UTF_8)) {
+				lines.forEach(line -> {
+					var parts = line.split("\t", 3);
+					if (parts.length != 3) {
+						return;
+					}
+					if (parts[2].isEmpty()) {
+						this.cache.remove(parts[1]);
+						return;
+					}
+					try {
+						this.cache.put(parts[1], parts[2], Long.parseLong(parts[0]));
+					} catch (NumberFormatException ignored) {
+					}
+				});
+			}
+		} else if (this.file.getParent() != null) {
+			Files.createDirectories(this.file.getParent());
+		}
+
+		this.compact();
+		log.info("Loaded {} mirror resolutions from {}", this.cache.size(), this.file);
+	}
+
+	/**
+	 * Rewrites the file with only the live entries and reopens it for appending.
+	 */
+	private synchronized void compact() throws IOException {
+		var tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		var written = new int[1];
+		try (var out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			var error = new IOException[1];
+			this.cache.forEach((key, entry) -> {
+				try {
+					writeLine(out, entry.expiresAt, key, entry.value);
+					written[0]++;
+				} catch (IOException e) {
+					error[0] = e;
+				}
+			});
+			if (error[0] != null) {
+				throw error[0];
+			}
+		}
+
+		if (this.writer != null) {
+			this.writer.close();
+			this.writer = null;
+		}
+		try {
+			Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			this.lines = written[0];
+		} finally {
+			// keep appending to whichever file is in place, even if it could not be replaced
+			this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+	}
+
+	@Override
+	@Nullable
+	public String get(String key) {
+		return this.cache.get(key);
+	}
+
+	@Override
+	public boolean contains(String key) {
+		return this.cache.contains(key);
+	}
+
+	@Override
+	public void put(String key, String value) {
+		var expiresAt = System.currentTimeMillis() + this.cache.getTtl();
+		this.cache.put(key, value, expiresAt);
+		this.append(expiresAt, key, value);
+	}
+
+	@Override
+	public void remove(String key) {
+		this.cache.remove(key);
+		this.append(0, key, "");
+	}
+
+	private synchronized void append(long expiresAt, String key, String value) {
+		if (this.writer == null) {
+			return;
+		}
+		try {
+			writeLine(this.writer, expiresAt, key, value);
+			this.writer.flush();
+		} catch (IOException e) {
+			log.error("Failed to write mirror resolution to {}", this.file, e);
+			return;
+		}
+
+		if (++this.lines > COMPACT_MIN_LINES && this.lines > this.cache.size() * 2) {
+			try {
+				this.compact();
+			} catch (IOException e) {
+				log.error("Failed to compact mirror resolution cache file {}", this.file, e);
+			}
+		}
+	}
+
+	private static void writeLine(BufferedWriter writer, long expiresAt, String key, String value) throws IOException {
+		writer.write(expiresAt + "\t" + key + "\t" + value);
+		writer.newLine();
+	}
+
+	@Override
+	public long getHits() {
+		return this.cache.getHits();
+	}
+
+	@Override
+	public long getMisses() {
+		return this.cache.getMisses();
+	}
+
+	@Override
+	public int size() {
+		return this.cache.size();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.writer == null) {
+			return;
+		}
+		try {
+			this.writer.close();
+		} catch (IOException e) {
+			log.error("Failed to close mirror resolution cache file {}", this.file, e);
+		}
+		this.writer = null;
+	}
+
+}
@@ -1,17 +1,42 @@
 package com.github.topi314.lavasrc.mirror;
 
+import com.github.topi314.lavasrc.ExpiringLruCache;
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
+import com.github.topi314.lavasrc.LavaSrcHttpPool;
+import com.github.topi314.lavasrc.TokenBucket;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.InternalAudioTrack;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -19,11 +44,27 @@ public abstract class MirroringAudioSourceManager extends ExtendedAudioSourceMan
 
 	public static final String ISRC_PATTERN = "%ISRC%";
 	public static final String QUERY_PATTERN = "%QUERY%";
+	public static final int PREFETCH_CONCURRENCY = 2;
+	public static final int PREFETCH_QUEUE_SIZE = 100;
+	public static final int PREFETCH_MAX_SIZE = 500;
+	public static final long PREFETCH_TTL = TimeUnit.MINUTES.toMillis(30);
+	// how long playback waits for a prefetch which is still running before resolving the track itself
+	public static final long PREFETCH_WAIT_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+	public static final int BULK_RESOLVE_CONCURRENCY = 4;
+	public static final double BULK_RESOLVE_RATE = 5;
 	private static final Logger log = LoggerFactory.getLogger(MirroringAudioSourceManager.class);
 	protected final Function<Void, AudioPlayerManager> audioPlayerManager;
 	protected final MirroringAudioTrackResolver resolver;
 
-	protected final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+	protected final HttpInterfaceManager httpInterfaceManager = LavaSrcHttpPool.createDefaultThreadLocalManager();
+	private final HttpInterfaceManager streamHttpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+	protected MirroringResolutionCache resolutionCache;
+	protected MirroringNegativeCache negativeCache;
+	private final ThreadPoolExecutor prefetchExecutor;
+	private final ExpiringLruCache<String, CompletableFuture<InternalAudioTrack>> prefetchedMirrors = new ExpiringLruCache<>(PREFETCH_MAX_SIZE, PREFETCH_TTL);
+	private final ThreadPoolExecutor bulkResolveExecutor;
+	// null if bulk resolutions are not rate limited
+	private volatile TokenBucket bulkResolveRateLimit = new TokenBucket(BULK_RESOLVE_RATE, BULK_RESOLVE_RATE);
 
 	protected MirroringAudioSourceManager(AudioPlayerManager audioPlayerManager, MirroringAudioTrackResolver resolver) {
 		this(unused -> audioPlayerManager, resolver);
@@ -32,26 +73,44 @@ public abstract class MirroringAudioSourceManager extends ExtendedAudioSourceMan
 	protected MirroringAudioSourceManager(Function<Void, AudioPlayerManager> audioPlayerManager, MirroringAudioTrackResolver resolver) {
 		this.audioPlayerManager = audioPlayerManager;
 		this.resolver = resolver;
+
+		this.prefetchExecutor = new ThreadPoolExecutor(PREFETCH_CONCURRENCY, PREFETCH_CONCURRENCY, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(PREFETCH_QUEUE_SIZE), new DaemonThreadFactory("mirror-prefetch"));
+		this.prefetchExecutor.allowCoreThreadTimeOut(true);
+		this.bulkResolveExecutor = new ThreadPoolExecutor(BULK_RESOLVE_CONCURRENCY, BULK_RESOLVE_CONCURRENCY, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DaemonThreadFactory("mirror-bulk-resolve"));
+		this.bulkResolveExecutor.allowCoreThreadTimeOut(true);
 	}
 
 	@Override
 	public void configureRequests(Function<RequestConfig, RequestConfig> configurator) {
 		this.httpInterfaceManager.configureRequests(configurator);
+		this.streamHttpInterfaceManager.configureRequests(configurator);
 	}
 
 	@Override
 	public void configureBuilder(Consumer<HttpClientBuilder> configurator) {
 		this.httpInterfaceManager.configureBuilder(configurator);
+		this.streamHttpInterfaceManager.configureBuilder(configurator);
 	}
 
 	public HttpInterface getHttpInterface() {
 		return this.httpInterfaceManager.getInterface();
 	}
 
+	/**
+	 * @return an interface for audio streams, they hold their connection for the whole track and therefore don't use {@link LavaSrcHttpPool}
+	 */
+	public HttpInterface getStreamHttpInterface() {
+		return this.streamHttpInterfaceManager.getInterface();
+	}
+
 	@Override
 	public void shutdown() {
+		ExecutorTools.shutdownExecutor(this.prefetchExecutor, "mirror prefetcher");
+		ExecutorTools.shutdownExecutor(this.bulkResolveExecutor, "mirror bulk resolver");
+		this.prefetchedMirrors.clear();
 		try {
 			this.httpInterfaceManager.close();
+			this.streamHttpInterfaceManager.close();
 		} catch (IOException e) {
 			log.error("Failed to close HTTP interface manager", e);
 		}
@@ -65,4 +124,244 @@ public abstract class MirroringAudioSourceManager extends ExtendedAudioSourceMan
 		return this.resolver;
 	}
 
+	@Nullable
+	public MirroringResolutionCache getResolutionCache() {
+		return this.resolutionCache;
+	}
+
+	public void setResolutionCache(@Nullable MirroringResolutionCache resolutionCache) {
+		this.resolutionCache = resolutionCache;
+	}
+
+	@Nullable
+	public MirroringNegativeCache getNegativeCache() {
+		return this.negativeCache;
+	}
+
+	public void setNegativeCache(@Nullable MirroringNegativeCache negativeCache) {
+		this.negativeCache = negativeCache;
+	}
+
+	/**
+	 * Sets how many tracks {@link #resolveAll} resolves at the same time, shared by all running bulk resolutions.
+	 */
+	public void setBulkResolveConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Bulk resolve concurrency must be at least 1");
+		}
+		if (concurrency > this.bulkResolveExecutor.getMaximumPoolSize()) {
+			this.bulkResolveExecutor.setMaximumPoolSize(concurrency);
+			this.bulkResolveExecutor.setCorePoolSize(concurrency);
+		} else {
+			this.bulkResolveExecutor.setCorePoolSize(concurrency);
+			this.bulkResolveExecutor.setMaximumPoolSize(concurrency);
+		}
+	}
+
+	/**
+	 * Sets how many tracks {@link #resolveAll} may search for per second, shared by all running bulk resolutions.
+	 *
+	 * @param tracksPerSecond the number of tracks per second, 0 to not limit bulk resolutions
+	 */
+	public void setBulkResolveRate(double tracksPerSecond) {
+		this.bulkResolveRateLimit = tracksPerSecond > 0 ? new TokenBucket(tracksPerSecond, Math.max(1, tracksPerSecond)) : null;
+	}
+
+	@Override
+	public void encodeTrack(AudioTrack track, DataOutput output) throws IOException {
+		super.encodeTrack(track, output);
+		var mirror = track instanceof MirroringAudioTrack ? ((MirroringAudioTrack) track).getResolvedMirror() : null;
+		DataFormatTools.writeNullableText(output, mirror == null ? null : mirror.getSourceName());
+		if (mirror != null) {
+			output.writeUTF(mirror.getIdentifier());
+			this.writeUrl(output, mirror.getUri());
+		}
+	}
+
+	/**
+	 * Reads the resolved mirror written by {@link #encodeTrack} after the fields read by {@link #decodeTrack(DataInput)}.
+	 *
+	 * @return the mirror or null if the track was encoded without one
+	 */
+	@Nullable
+	protected ResolvedMirror decodeResolvedMirror(DataInput input, ExtendedAudioTrackInfo extendedAudioTrackInfo) throws IOException {
+		if (extendedAudioTrackInfo.version < 2) {
+			return null;
+		}
+		var sourceName = DataFormatTools.readNullableText(input);
+		return sourceName == null ? null : new ResolvedMirror(sourceName, input.readUTF(), this.readUrl(input));
+	}
+
+	public String encodeMirror(AudioTrack track) throws IOException {
+		var baos = new ByteArrayOutputStream();
+		this.getAudioPlayerManager().encodeTrack(new MessageOutput(baos), track);
+		return Base64.getEncoder().encodeToString(baos.toByteArray());
+	}
+
+	@Nullable
+	public AudioTrack decodeMirror(String encoded) throws IOException {
+		var holder = this.getAudioPlayerManager().decodeTrack(new MessageInput(new ByteArrayInputStream(Base64.getDecoder().decode(encoded))));
+		return holder == null ? null : holder.decodedTrack;
+	}
+
+	/**
+	 * Resolves the mirrors of the given tracks in the background, so they can start playing without searching the providers first.
+	 * Tracks which don't belong to this source manager, previews and tracks which are already being prefetched are skipped.
+	 * If the prefetch queue is full the remaining tracks are skipped as well.
+	 *
+	 * @return the number of tracks queued for prefetching
+	 */
+	public int prefetch(Collection<? extends AudioTrack> tracks) {
+		var queued = 0;
+		for (var track : tracks) {
+			if (!(track instanceof MirroringAudioTrack) || track.getSourceManager() != this || ((MirroringAudioTrack) track).isPreview()) {
+				continue;
+			}
+			var mirroringTrack = (MirroringAudioTrack) track;
+			var key = MirroringResolutionCache.key(track.getInfo());
+			var future = new CompletableFuture<InternalAudioTrack>();
+			synchronized (this.prefetchedMirrors) {
+				if (this.prefetchedMirrors.get(key) != null) {
+					continue;
+				}
+				this.prefetchedMirrors.put(key, future);
+			}
+			try {
+				this.prefetchExecutor.execute(() -> {
+					try {
+						future.complete(mirroringTrack.resolveMirror());
+					} catch (Throwable e) {
+						log.debug("Failed to prefetch track mirror for {}", key, e);
+						future.completeExceptionally(e);
+					}
+				});
+				queued++;
+			} catch (RejectedExecutionException e) {
+				this.prefetchedMirrors.remove(key);
+				log.debug("Prefetch queue is full, skipping remaining {} tracks", tracks.size() - queued);
+				break;
+			}
+		}
+		return queued;
+	}
+
+	/**
+	 * Takes the prefetched mirror of a track, waiting up to {@link #PREFETCH_WAIT_TIMEOUT} if it is still being resolved.
+	 * Every prefetched mirror can only be taken once.
+	 *
+	 * @return the prefetched mirror or null if the track was not prefetched, resolving it failed or took too long
+	 */
+	@Nullable
+	public InternalAudioTrack takePrefetchedMirror(MirroringAudioTrack track) {
+		var key = MirroringResolutionCache.key(track.getInfo());
+		CompletableFuture<InternalAudioTrack> future;
+		synchronized (this.prefetchedMirrors) {
+			future = this.prefetchedMirrors.get(key);
+			if (future == null) {
+				return null;
+			}
+			this.prefetchedMirrors.remove(key);
+		}
+		try {
+			return future.get(PREFETCH_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (TimeoutException e) {
+			log.debug("Prefetching the track mirror for {} took too long, resolving it again", key);
+			return null;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Resolves the mirrors of all given tracks in the background with a limited concurrency and rate, so a whole queue can be warmed up.
+	 * The mirrors are stored in the resolution cache, which has to be set since the prefetched mirrors only hold a few tracks.
+	 * Tracks which don't belong to this source manager and previews are skipped, tracks which are already cached are not searched again.
+	 *
+	 * @param listener receives the progress after every track, may be null
+	 * @return a future which completes once every track was handled, cancelling it stops resolving the remaining tracks
+	 * @throws IllegalStateException if no resolution cache is set
+	 */
+	public CompletableFuture<BulkResolveResult> resolveAll(Collection<? extends AudioTrack> tracks, @Nullable BulkResolveListener listener) {
+		if (this.resolutionCache == null) {
+			throw new IllegalStateException("Resolving track mirrors in bulk requires a resolution cache");
+		}
+		var queue = new ConcurrentLinkedQueue<MirroringAudioTrack>();
+		for (var track : tracks) {
+			if (track instanceof MirroringAudioTrack && track.getSourceManager() == this && !((MirroringAudioTrack) track).isPreview()) {
+				queue.add((MirroringAudioTrack) track);
+			}
+		}
+
+		var total = queue.size();
+		var result = new CompletableFuture<BulkResolveResult>();
+		if (total == 0) {
+			result.complete(new BulkResolveResult(0, 0, 0));
+			return result;
+		}
+
+		var resolved = new AtomicInteger();
+		var failed = new AtomicInteger();
+		Runnable worker = () -> {
+			MirroringAudioTrack track;
+			while (!result.isDone() && (track = queue.poll()) != null) {
+				int resolvedCount;
+				int failedCount;
+				if (this.resolveForCache(track)) {
+					resolvedCount = resolved.incrementAndGet();
+					failedCount = failed.get();
+				} else {
+					resolvedCount = resolved.get();
+					failedCount = failed.incrementAndGet();
+				}
+				if (listener != null) {
+					try {
+						listener.onProgress(resolvedCount, failedCount, total);
+					} catch (Exception e) {
+						log.warn("Bulk resolve listener failed", e);
+					}
+				}
+				if (resolvedCount + failedCount == total) {
+					result.complete(new BulkResolveResult(total, resolvedCount, failedCount));
+				}
+			}
+		};
+
+		try {
+			for (var i = 0; i < Math.min(total, this.bulkResolveExecutor.getMaximumPoolSize()); i++) {
+				this.bulkResolveExecutor.execute(worker);
+			}
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	private boolean resolveForCache(MirroringAudioTrack track) {
+		var key = MirroringResolutionCache.key(track.getInfo());
+		var resolutionCache = this.resolutionCache;
+		if (resolutionCache != null && resolutionCache.contains(key)) {
+			return true;
+		}
+		if (this.negativeCache != null && this.negativeCache.contains(key)) {
+			return false;
+		}
+		try {
+			var rateLimit = this.bulkResolveRateLimit;
+			if (rateLimit != null) {
+				rateLimit.acquire();
+			}
+			track.resolveMirror();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			log.debug("Failed to resolve track mirror for {}", key, e);
+			return false;
+		}
+	}
+
 }
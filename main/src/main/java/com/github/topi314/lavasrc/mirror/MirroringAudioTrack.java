@@ -8,23 +8,49 @@ import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
 import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
 import com.sedmelluq.discord.lavaplayer.track.*;
 import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
 
+	public static final long DEFAULT_LOAD_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
 	private static final Logger log = LoggerFactory.getLogger(MirroringAudioTrack.class);
 
 	protected final MirroringAudioSourceManager sourceManager;
+	// the mirror this track is played from, it is encoded with the track and handed to clones so they don't have to resolve it again
+	private volatile ResolvedMirror resolvedMirror;
 
 	public MirroringAudioTrack(AudioTrackInfo trackInfo, String albumName, String albumUrl, String artistUrl, String artistArtworkUrl, String previewUrl, boolean isPreview, MirroringAudioSourceManager sourceManager) {
 		super(trackInfo, albumName, albumUrl, artistUrl, artistArtworkUrl, previewUrl, isPreview);
 		this.sourceManager = sourceManager;
 	}
 
+	/**
+	 * @return the mirror which is encoded with this track, it is set once the track started playing or if it was decoded or cloned with one
+	 */
+	@Nullable
+	public ResolvedMirror getResolvedMirror() {
+		return this.resolvedMirror;
+	}
+
+	public void setResolvedMirror(@Nullable ResolvedMirror resolvedMirror) {
+		this.resolvedMirror = resolvedMirror;
+	}
+
+	@Override
+	public AudioTrack makeClone() {
+		var clone = super.makeClone();
+		if (clone instanceof MirroringAudioTrack) {
+			((MirroringAudioTrack) clone).setResolvedMirror(this.resolvedMirror);
+		}
+		return clone;
+	}
+
 	abstract protected InternalAudioTrack createAudioTrack(AudioTrackInfo trackInfo, SeekableInputStream inputStream);
 
 	@Override
@@ -33,18 +59,133 @@ public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
 			if (this.previewUrl == null) {
 				throw new FriendlyException("No preview url found", FriendlyException.Severity.COMMON, new IllegalArgumentException());
 			}
-			try (var httpInterface = this.sourceManager.getHttpInterface()) {
+			try (var httpInterface = this.sourceManager.getStreamHttpInterface()) {
 				try (var stream = new PersistentHttpStream(httpInterface, new URI(this.previewUrl), this.trackInfo.length)) {
 					processDelegate(createAudioTrack(this.trackInfo, stream), executor);
 				}
 			}
 			return;
 		}
+
+		var resolved = this.loadResolvedMirror();
+		if (resolved != null) {
+			log.debug("Loaded previously resolved track mirror from {} {}({}) ", resolved.getSourceManager().getSourceName(), resolved.getInfo().title, resolved.getInfo().uri);
+			if (this.processMirror(resolved, executor)) {
+				return;
+			}
+			// the mirror is not playable anymore
+			this.resolvedMirror = null;
+		}
+
+		var prefetched = this.sourceManager.takePrefetchedMirror(this);
+		if (prefetched != null) {
+			log.debug("Loaded prefetched track mirror from {} {}({}) ", prefetched.getSourceManager().getSourceName(), prefetched.getInfo().title, prefetched.getInfo().uri);
+			this.rememberMirror(prefetched);
+			if (this.processMirror(prefetched, executor)) {
+				return;
+			}
+			this.resolvedMirror = null;
+		}
+
+		var cache = this.sourceManager.getResolutionCache();
+		var cacheKey = cache == null ? null : MirroringResolutionCache.key(this.trackInfo);
+		if (cacheKey != null) {
+			var cached = this.loadCachedMirror(cache, cacheKey);
+			if (cached != null) {
+				log.debug("Loaded cached track mirror from {} {}({}) ", cached.getSourceManager().getSourceName(), cached.getInfo().title, cached.getInfo().uri);
+				this.rememberMirror(cached);
+				if (this.processMirror(cached, executor)) {
+					return;
+				}
+				// the cached mirror is not playable anymore
+				cache.remove(cacheKey);
+				this.resolvedMirror = null;
+			}
+		}
+
+		var mirror = this.resolveUncachedMirror(cache, cacheKey);
+		this.rememberMirror(mirror);
+		processDelegate(mirror, executor);
+	}
+
+	/**
+	 * Plays a mirror which was resolved earlier, if it fails before any audio was played the track can still be resolved again.
+	 *
+	 * @return whether the mirror was played, false if it failed before playing anything
+	 */
+	private boolean processMirror(InternalAudioTrack mirror, LocalAudioTrackExecutor executor) throws Exception {
+		var position = executor.getPosition();
+		try {
+			processDelegate(mirror, executor);
+			return true;
+		} catch (InterruptedException e) {
+			throw e;
+		} catch (Exception e) {
+			if (executor.getPosition() != position || Thread.currentThread().isInterrupted()) {
+				throw e;
+			}
+			log.debug("Failed to play track mirror from {} {}({}), resolving it again", mirror.getSourceManager().getSourceName(), mirror.getInfo().title, mirror.getInfo().uri, e);
+			return false;
+		}
+	}
+
+	private InternalAudioTrack loadResolvedMirror() {
+		var mirror = this.resolvedMirror;
+		if (mirror == null) {
+			return null;
+		}
+		var playerManager = this.sourceManager.getAudioPlayerManager();
+		var source = mirror.getUri() == null ? null : playerManager.source(mirror.getSourceName());
+		if (source != null) {
+			try {
+				// the uri is loaded by the source which resolved it, so this is a single lookup instead of a search
+				var item = source.loadItem(playerManager, new AudioReference(mirror.getUri(), null));
+				if (item instanceof InternalAudioTrack && mirror.matches((AudioTrack) item)) {
+					return (InternalAudioTrack) item;
+				}
+			} catch (Exception e) {
+				log.debug("Failed to load previously resolved track mirror {}", mirror.getUri(), e);
+			}
+		}
+		this.resolvedMirror = null;
+		return null;
+	}
+
+	private void rememberMirror(InternalAudioTrack mirror) {
+		this.resolvedMirror = ResolvedMirror.of(mirror);
+	}
+
+	/**
+	 * Resolves the track which is played in place of this track, the result is stored in the resolution cache if one is set.
+	 * A cached mirror is used if available.
+	 */
+	public InternalAudioTrack resolveMirror() throws Exception {
+		var cache = this.sourceManager.getResolutionCache();
+		var cacheKey = cache == null ? null : MirroringResolutionCache.key(this.trackInfo);
+		if (cacheKey != null) {
+			var cached = this.loadCachedMirror(cache, cacheKey);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		return this.resolveUncachedMirror(cache, cacheKey);
+	}
+
+	private InternalAudioTrack resolveUncachedMirror(MirroringResolutionCache cache, String cacheKey) throws Exception {
+		var negativeCache = this.sourceManager.getNegativeCache();
+		var negativeCacheKey = negativeCache == null ? null : MirroringResolutionCache.key(this.trackInfo);
+		if (negativeCacheKey != null && negativeCache.contains(negativeCacheKey)) {
+			throw new TrackNotFoundException("No mirror found for track recently");
+		}
+
 		var track = this.sourceManager.getResolver().apply(this);
 
 		if (track instanceof AudioPlaylist) {
 			var tracks = ((AudioPlaylist) track).getTracks();
 			if (tracks.isEmpty()) {
+				if (negativeCacheKey != null) {
+					negativeCache.put(negativeCacheKey);
+				}
 				throw new TrackNotFoundException("No tracks found in playlist or search result for track");
 			}
 			track = tracks.get(0);
@@ -52,20 +193,67 @@ public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
 		if (track instanceof InternalAudioTrack) {
 			var internalTrack = (InternalAudioTrack) track;
 			log.debug("Loaded track mirror from {} {}({}) ", internalTrack.getSourceManager().getSourceName(), internalTrack.getInfo().title, internalTrack.getInfo().uri);
-			processDelegate(internalTrack, executor);
-			return;
+			if (cacheKey != null) {
+				try {
+					cache.put(cacheKey, this.sourceManager.encodeMirror(internalTrack));
+				} catch (Exception e) {
+					log.warn("Failed to cache track mirror for {}", cacheKey, e);
+				}
+			}
+			return internalTrack;
+		}
+		if (negativeCacheKey != null) {
+			negativeCache.put(negativeCacheKey);
 		}
 		throw new TrackNotFoundException("No mirror found for track");
 	}
 
+	private InternalAudioTrack loadCachedMirror(MirroringResolutionCache cache, String cacheKey) {
+		var encoded = cache.get(cacheKey);
+		if (encoded == null) {
+			return null;
+		}
+		try {
+			var track = this.sourceManager.decodeMirror(encoded);
+			if (track instanceof InternalAudioTrack) {
+				return (InternalAudioTrack) track;
+			}
+		} catch (Exception e) {
+			log.debug("Failed to decode cached track mirror for {}", cacheKey, e);
+		}
+		// the source which resolved this track is probably not registered anymore
+		cache.remove(cacheKey);
+		return null;
+	}
+
 	@Override
 	public AudioSourceManager getSourceManager() {
 		return this.sourceManager;
 	}
 
+	/**
+	 * Loads the query and waits up to {@link #DEFAULT_LOAD_TIMEOUT} for it, so a hanging load can't block the playback thread forever.
+	 * Use {@link #loadItemAsync(String, long)} to choose the timeout.
+	 *
+	 * @throws java.util.concurrent.CompletionException if the load failed or timed out
+	 */
 	public AudioItem loadItem(String query) {
+		return this.loadItemAsync(query, DEFAULT_LOAD_TIMEOUT).join();
+	}
+
+	public CompletableFuture<AudioItem> loadItemAsync(String query) {
+		return this.loadItemAsync(query, 0);
+	}
+
+	/**
+	 * Loads the query via the {@link com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager}.
+	 * Cancelling the returned future or running into the timeout also cancels the load.
+	 *
+	 * @param timeout the timeout in milliseconds after which the future completes with a {@link java.util.concurrent.TimeoutException}, 0 or a negative value for none
+	 */
+	public CompletableFuture<AudioItem> loadItemAsync(String query, long timeout) {
 		var cf = new CompletableFuture<AudioItem>();
-		this.sourceManager.getAudioPlayerManager().loadItem(query, new AudioLoadResultHandler() {
+		var loadFuture = this.sourceManager.getAudioPlayerManager().loadItem(query, new AudioLoadResultHandler() {
 
 			@Override
 			public void trackLoaded(AudioTrack track) {
@@ -91,7 +279,15 @@ public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
 				cf.completeExceptionally(exception);
 			}
 		});
-		return cf.join();
+		if (timeout > 0) {
+			cf.orTimeout(timeout, TimeUnit.MILLISECONDS);
+		}
+		cf.whenComplete((item, e) -> {
+			if (e != null) {
+				loadFuture.cancel(true);
+			}
+		});
+		return cf;
 	}
 
 }
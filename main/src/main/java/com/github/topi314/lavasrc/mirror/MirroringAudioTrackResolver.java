@@ -2,8 +2,21 @@ package com.github.topi314.lavasrc.mirror;
 
 import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 @FunctionalInterface
 public interface MirroringAudioTrackResolver extends Function<MirroringAudioTrack, AudioItem> {
+
+	/**
+	 * Resolves the track without blocking the calling thread if the resolver supports it, by default this resolves the track right away.
+	 */
+	default CompletableFuture<AudioItem> applyAsync(MirroringAudioTrack mirroringAudioTrack) {
+		try {
+			return CompletableFuture.completedFuture(this.apply(mirroringAudioTrack));
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
 }
@@ -0,0 +1,51 @@
+package com.github.topi314.lavasrc.mirror;
+
+import com.github.topi314.lavasrc.ExpiringLruCache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Remembers for a short time which tracks could not be resolved by any provider, so playing them again fails fast.
+ * Keys are built with {@link MirroringResolutionCache#key}.
+ */
+public class MirroringNegativeCache {
+
+	private final ExpiringLruCache<String, Boolean> cache;
+	private final long jitter;
+
+	/**
+	 * @param maxSize the maximum number of tracks kept
+	 * @param ttl     how long a track is kept in milliseconds
+	 * @param jitter  the maximum random time in milliseconds added to the ttl, so tracks which failed together are retried at different times
+	 */
+	public MirroringNegativeCache(int maxSize, long ttl, long jitter) {
+		this.cache = new ExpiringLruCache<>(maxSize, ttl);
+		this.jitter = jitter;
+	}
+
+	public boolean contains(String key) {
+		return this.cache.get(key) != null;
+	}
+
+	public void put(String key) {
+		var jitter = this.jitter > 0 ? ThreadLocalRandom.current().nextLong(this.jitter + 1) : 0;
+		this.cache.put(key, Boolean.TRUE, System.currentTimeMillis() + this.cache.getTtl() + jitter);
+	}
+
+	public void remove(String key) {
+		this.cache.remove(key);
+	}
+
+	public void clear() {
+		this.cache.clear();
+	}
+
+	public int size() {
+		return this.cache.size();
+	}
+
+	public long getHits() {
+		return this.cache.getHits();
+	}
+
+}
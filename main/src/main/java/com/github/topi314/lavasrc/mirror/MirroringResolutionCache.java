@@ -0,0 +1,57 @@
+package com.github.topi314.lavasrc.mirror;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Remembers which track a {@link MirroringAudioTrack} was resolved to, so the providers don't have to be searched again.
+ * Values are opaque strings produced by {@link MirroringAudioSourceManager#encodeMirror}.
+ */
+public interface MirroringResolutionCache {
+
+	@Nullable
+	String get(String key);
+
+	/**
+	 * Checks whether a mirror is cached without counting it as a hit or miss, used by bulk resolutions.
+	 */
+	default boolean contains(String key) {
+		return this.get(key) != null;
+	}
+
+	void put(String key, String value);
+
+	void remove(String key);
+
+	long getHits();
+
+	long getMisses();
+
+	int size();
+
+	/**
+	 * Called by whoever created the cache once it is not used anymore, source managers never close it since it can be shared.
+	 */
+	default void close() {
+	}
+
+	/**
+	 * Builds the cache key for a track, the ISRC if available, otherwise the normalized title and author.
+	 */
+	static String key(AudioTrackInfo info) {
+		if (info.isrc != null && !info.isrc.isEmpty()) {
+			return "isrc:" + info.isrc.toUpperCase(Locale.ROOT);
+		}
+		return "query:" + normalize(info.title) + " " + normalize(info.author);
+	}
+
+	private static String normalize(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+}
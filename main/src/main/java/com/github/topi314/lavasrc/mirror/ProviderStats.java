@@ -0,0 +1,105 @@
+package com.github.topi314.lavasrc.mirror;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics over the most recent searches of a single mirroring provider.
+ */
+public class ProviderStats {
+
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+
+	private final long[] latencies;
+	private final Outcome[] outcomes;
+	private int next;
+	private int count;
+
+	public ProviderStats() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	public ProviderStats(int windowSize) {
+		this.latencies = new long[windowSize];
+		this.outcomes = new Outcome[windowSize];
+	}
+
+	public synchronized void record(Outcome outcome, long latency) {
+		this.latencies[this.next] = latency;
+		this.outcomes[this.next] = outcome;
+		this.next = (this.next + 1) % this.latencies.length;
+		if (this.count < this.latencies.length) {
+			this.count++;
+		}
+	}
+
+	public synchronized int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the share of searches which found something, 0 if nothing was recorded yet
+	 */
+	public double getSuccessRate() {
+		return this.getRate(Outcome.FOUND);
+	}
+
+	/**
+	 * @return the share of searches which failed or timed out, 0 if nothing was recorded yet
+	 */
+	public double getErrorRate() {
+		return this.getRate(Outcome.ERROR);
+	}
+
+	/**
+	 * @param percentile the percentile between 0 and 1
+	 * @return the latency in milliseconds, 0 if nothing was recorded yet
+	 */
+	public synchronized long getLatency(double percentile) {
+		if (this.count == 0) {
+			return 0;
+		}
+		var sorted = Arrays.copyOf(this.latencies, this.count);
+		Arrays.sort(sorted);
+		var index = (int) Math.ceil(percentile * this.count) - 1;
+		return sorted[Math.max(0, Math.min(index, this.count - 1))];
+	}
+
+	/**
+	 * The expected time spent on this provider until it finds something, used to order the providers.
+	 * It does not account for how well the found tracks match, so it should only be compared between providers searching for the same thing.
+	 *
+	 * @return the median latency divided by the success rate, or {@link Double#POSITIVE_INFINITY} if it never found anything
+	 */
+	public double getExpectedCost() {
+		var successRate = this.getSuccessRate();
+		if (successRate == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return Math.max(1, this.getLatency(0.5)) / successRate;
+	}
+
+	private synchronized double getRate(Outcome outcome) {
+		if (this.count == 0) {
+			return 0;
+		}
+		var matches = 0;
+		for (var i = 0; i < this.count; i++) {
+			if (this.outcomes[i] == outcome) {
+				matches++;
+			}
+		}
+		return (double) matches / this.count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ProviderStats{count=%d, successRate=%.2f, errorRate=%.2f, p50=%dms, p99=%dms}", this.getCount(), this.getSuccessRate(), this.getErrorRate(), this.getLatency(0.5), this.getLatency(0.99));
+	}
+
+	public enum Outcome {
+		FOUND,
+		NOT_FOUND,
+		ERROR
+	}
+
+}
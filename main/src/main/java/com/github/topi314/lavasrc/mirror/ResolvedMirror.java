@@ -0,0 +1,49 @@
+package com.github.topi314.lavasrc.mirror;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The track a {@link MirroringAudioTrack} was played from, only the source, identifier and uri are kept so it stays small when encoded.
+ */
+public class ResolvedMirror {
+
+	private final String sourceName;
+	private final String identifier;
+	@Nullable
+	private final String uri;
+
+	public ResolvedMirror(String sourceName, String identifier, @Nullable String uri) {
+		this.sourceName = sourceName;
+		this.identifier = identifier;
+		this.uri = uri;
+	}
+
+	public static ResolvedMirror of(AudioTrack track) {
+		return new ResolvedMirror(track.getSourceManager().getSourceName(), track.getIdentifier(), track.getInfo().uri);
+	}
+
+	public String getSourceName() {
+		return this.sourceName;
+	}
+
+	public String getIdentifier() {
+		return this.identifier;
+	}
+
+	/**
+	 * @return the uri the mirror is loaded from through its source, or null if it has none
+	 */
+	@Nullable
+	public String getUri() {
+		return this.uri;
+	}
+
+	/**
+	 * @return whether the track is the one this mirror refers to
+	 */
+	public boolean matches(AudioTrack track) {
+		return track.getSourceManager() != null && this.sourceName.equals(track.getSourceManager().getSourceName()) && this.identifier.equals(track.getIdentifier());
+	}
+
+}
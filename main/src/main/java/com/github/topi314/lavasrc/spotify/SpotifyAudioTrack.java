@@ -26,7 +26,7 @@ public class SpotifyAudioTrack extends MirroringAudioTrack {
 
 	@Override
 	protected AudioTrack makeShallowClone() {
-		return new SpotifyAudioTrack(this.trackInfo, (SpotifySourceManager) this.sourceManager);
+		return new SpotifyAudioTrack(this.trackInfo, this.albumName, this.albumUrl, this.artistUrl, this.artistArtworkUrl, this.previewUrl, this.isPreview, this.sourceManager);
 	}
 
 	public boolean isLocal() {
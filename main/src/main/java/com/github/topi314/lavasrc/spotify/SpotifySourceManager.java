@@ -6,21 +6,22 @@ import com.github.topi314.lavalyrics.lyrics.BasicAudioLyrics;
 import com.github.topi314.lavasearch.AudioSearchManager;
 import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
+import com.github.topi314.lavasrc.ExpiringLruCache;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.TokenRefresher;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
 import com.github.topi314.lavasrc.mirror.MirroringAudioTrackResolver;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
-import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
-import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
 import com.sedmelluq.discord.lavaplayer.track.*;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -33,13 +34,22 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class SpotifySourceManager extends MirroringAudioSourceManager implements HttpConfigurable, AudioSearchManager, AudioLyricsManager {
 
@@ -51,12 +61,51 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	public static final String SHARE_URL = "https://spotify.link/";
 	public static final int PLAYLIST_MAX_PAGE_ITEMS = 100;
 	public static final int ALBUM_MAX_PAGE_ITEMS = 50;
+	public static final int PAGE_FETCH_CONCURRENCY = 4;
+	public static final int ARTISTS_MAX_PAGE_ITEMS = 50;
+	public static final int ARTIST_CACHE_MAX_SIZE = 5000;
+	public static final long ARTIST_CACHE_TTL = TimeUnit.HOURS.toMillis(1);
+	public static final int PLAYLIST_CACHE_MAX_SIZE = 50;
+	public static final long PLAYLIST_CACHE_TTL = TimeUnit.HOURS.toMillis(1);
 	public static final String API_BASE = "https://api.spotify.com/v1/";
 	public static final String CLIENT_API_BASE = "https://spclient.wg.spotify.com/";
+	// the fields parseTrack reads, used to only request what we need where the api supports filtering
+	public static final String TRACK_FIELDS = "id,name,type,is_local,duration_ms,preview_url,external_urls,external_ids,artists(id,name,external_urls),album(name,images,external_urls)";
+	public static final String PLAYLIST_HEADER_FIELDS = "snapshot_id,name,external_urls,images,owner(display_name),tracks(total)";
+	public static final String PLAYLIST_FIELDS = "snapshot_id,name,external_urls,images,owner(display_name),tracks(total,items(track(" + TRACK_FIELDS + ")))";
+	public static final String PLAYLIST_TRACKS_FIELDS = "items(track(" + TRACK_FIELDS + "))";
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.ARTIST, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.TRACK);
+	public static final double REQUEST_RATE = 10;
+	public static final int REQUEST_BURST = 20;
+	// only ever append to this list, encoded tracks refer to the templates by index
+	public static final List<String> URL_TEMPLATES = List.of(
+		"https://open.spotify.com/album/",
+		"https://open.spotify.com/artist/",
+		"https://i.scdn.co/image/",
+		"https://p.scdn.co/mp3-preview/"
+	);
+	public static final List<String> API_ENDPOINTS = List.of(
+		"/v1/search",
+		"/v1/recommendations",
+		"/v1/tracks",
+		"/v1/tracks/{id}",
+		"/v1/albums/{id}",
+		"/v1/albums/{id}/tracks",
+		"/v1/playlists/{id}",
+		"/v1/playlists/{id}/tracks",
+		"/v1/artists",
+		"/v1/artists/{id}",
+		"/v1/artists/{id}/top-tracks"
+	);
+	// si identifies who shared a link
+	public static final List<String> TRACKING_PARAMETERS = Stream.concat(UTM_PARAMETERS.stream(), Stream.of("si")).collect(Collectors.toUnmodifiableList());
 	private static final Logger log = LoggerFactory.getLogger(SpotifySourceManager.class);
 
-	private final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+	private final ThreadPoolExecutor pageExecutor;
+	// artist id -> images, only used to decorate tracks with artist artwork
+	private final ExpiringLruCache<String, JsonBrowser> artistImages = new ExpiringLruCache<>(ARTIST_CACHE_MAX_SIZE, ARTIST_CACHE_TTL);
+	// playlist id -> tracks of its last loaded snapshot
+	private final ExpiringLruCache<String, CachedPlaylist> playlistCache = new ExpiringLruCache<>(PLAYLIST_CACHE_MAX_SIZE, PLAYLIST_CACHE_TTL);
 	private SpotifyTokenTracker tokenTracker;
 	private String spDc;
 	private final String countryCode;
@@ -65,8 +114,8 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	private boolean localFiles;
 	private boolean resolveArtistsInSearch = true;
 
-	private String spToken;
-	private Instant spTokenExpire;
+	private Duration tokenRefreshMargin = TokenRefresher.DEFAULT_REFRESH_MARGIN;
+	private final TokenRefresher spTokenRefresher = new TokenRefresher("Spotify sp_dc token", this::fetchSpToken);
 
 	public SpotifySourceManager(String[] providers, String clientId, String clientSecret, String countryCode, AudioPlayerManager audioPlayerManager) {
 		this(clientId, clientSecret, null, countryCode, unused -> audioPlayerManager, new DefaultMirroringAudioTrackResolver(providers));
@@ -94,6 +143,10 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			countryCode = "US";
 		}
 		this.countryCode = countryCode;
+
+		this.pageExecutor = new ThreadPoolExecutor(PAGE_FETCH_CONCURRENCY, PAGE_FETCH_CONCURRENCY, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DaemonThreadFactory("spotify-pages"));
+		this.pageExecutor.allowCoreThreadTimeOut(true);
+		this.requestScheduler.setRate(REQUEST_RATE, REQUEST_BURST);
 	}
 
 	public void setPlaylistPageLimit(int playlistPageLimit) {
@@ -112,14 +165,24 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 		this.resolveArtistsInSearch = resolveArtistsInSearch;
 	}
 
+	/**
+	 * Sets how long before expiry the access tokens are renewed in the background.
+	 */
+	public void setTokenRefreshMargin(Duration tokenRefreshMargin) {
+		this.tokenRefreshMargin = tokenRefreshMargin;
+		this.tokenTracker.setRefreshMargin(tokenRefreshMargin);
+		this.spTokenRefresher.setRefreshMargin(tokenRefreshMargin);
+	}
+
 	public void setClientIDSecret(String clientId, String clientSecret) {
-		this.tokenTracker = new SpotifyTokenTracker(this, clientId, clientSecret);
+		var oldTokenTracker = this.tokenTracker;
+		this.tokenTracker = new SpotifyTokenTracker(this, clientId, clientSecret, this.tokenRefreshMargin);
+		oldTokenTracker.close();
 	}
 
 	public void setSpDc(String spDc) {
 		this.spDc = spDc;
-		this.spToken = null;
-		this.spTokenExpire = null;
+		this.spTokenRefresher.invalidate();
 	}
 
 	@NotNull
@@ -128,6 +191,26 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 		return "spotify";
 	}
 
+	@Override
+	protected List<String> getUrlTemplates() {
+		return URL_TEMPLATES;
+	}
+
+	@Override
+	protected List<String> getApiEndpoints() {
+		return API_ENDPOINTS;
+	}
+
+	@Override
+	protected List<String> getTrackingParameters() {
+		return TRACKING_PARAMETERS;
+	}
+
+	@Override
+	public Map<String, ExpiringLruCache<?, ?>> getInternalCaches() {
+		return Map.of("artist_image", this.artistImages, "playlist", this.playlistCache);
+	}
+
 	@Override
 	@Nullable
 	public AudioLyrics loadLyrics(@NotNull AudioTrack audioTrack) {
@@ -197,7 +280,7 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	@Override
 	public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
 		var extendedAudioTrackInfo = super.decodeTrack(input);
-		return new SpotifyAudioTrack(trackInfo,
+		var track = new SpotifyAudioTrack(trackInfo,
 			extendedAudioTrackInfo.albumName,
 			extendedAudioTrackInfo.albumUrl,
 			extendedAudioTrackInfo.artistUrl,
@@ -206,6 +289,8 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			extendedAudioTrackInfo.isPreview,
 			this
 		);
+		track.setResolvedMirror(this.decodeResolvedMirror(input, extendedAudioTrackInfo));
+		return track;
 	}
 
 	@Override
@@ -225,7 +310,8 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
 		var identifier = reference.identifier;
 		var preview = reference.identifier.startsWith(PREVIEW_PREFIX);
-		return this.loadItem(preview ? identifier.substring(PREVIEW_PREFIX.length()) : identifier, preview);
+		var id = preview ? identifier.substring(PREVIEW_PREFIX.length()) : identifier;
+		return this.loadItemOnce(identifier, () -> this.loadItem(id, preview));
 	}
 
 	public AudioItem loadItem(String identifier, boolean preview) {
@@ -279,26 +365,78 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 	}
 
 	public void requestSpToken() throws IOException {
+		this.spTokenRefresher.refresh();
+	}
+
+	private TokenRefresher.Token fetchSpToken() throws IOException {
 		var request = new HttpGet("https://open.spotify.com/get_access_token?reason=transport&productType=web_player");
 		request.addHeader("App-Platform", "WebPlayer");
 		request.addHeader("Cookie", "sp_dc=" + this.spDc);
 
 		var json = LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
-		this.spToken = json.get("accessToken").text();
-		this.spTokenExpire = Instant.ofEpochMilli(json.get("accessTokenExpirationTimestampMs").asLong(0));
+		if (json == null) {
+			throw new IOException("No sp_dc token response received");
+		}
+		return new TokenRefresher.Token(json.get("accessToken").text(), Instant.ofEpochMilli(json.get("accessTokenExpirationTimestampMs").asLong(0)));
 	}
 
 	public String getSpToken() throws IOException {
-		if (this.spToken == null || this.spTokenExpire == null || this.spTokenExpire.isBefore(Instant.now())) {
-			this.requestSpToken();
-		}
-		return this.spToken;
+		return this.spTokenRefresher.getToken();
 	}
 
 	public JsonBrowser getJson(String uri) throws IOException {
 		var request = new HttpGet(uri);
 		request.addHeader("Authorization", "Bearer " + this.tokenTracker.getAccessToken());
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return this.requestScheduler.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+	}
+
+	/**
+	 * Fetches all given urls on the page executor and returns the responses in the same order as the urls.
+	 * The first url is fetched on the calling thread, so a single page never waits for a free executor thread.
+	 */
+	private List<JsonBrowser> getJsonPages(List<String> urls) throws IOException {
+		var futures = new ArrayList<Future<JsonBrowser>>(urls.size());
+		try {
+			for (var url : urls.subList(Math.min(1, urls.size()), urls.size())) {
+				futures.add(this.pageExecutor.submit(() -> this.getJson(url)));
+			}
+
+			var pages = new ArrayList<JsonBrowser>(urls.size());
+			if (!urls.isEmpty()) {
+				pages.add(this.getJson(urls.get(0)));
+			}
+			pages.addAll(this.awaitPages(futures));
+			return pages;
+		} finally {
+			for (var future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Waits for all futures and returns their results in order.
+	 */
+	private <T> List<T> awaitPages(List<Future<T>> futures) throws IOException {
+		try {
+			var results = new ArrayList<T>(futures.size());
+			for (var future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while fetching pages", e);
+		} catch (ExecutionException e) {
+			var cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException("Failed to fetch page", cause);
+		}
 	}
 
 	private AudioSearchResult getAutocomplete(String query, Set<AudioSearchResult.Type> types) throws IOException {
@@ -362,15 +500,13 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 		}
 
 		if (this.resolveArtistsInSearch) {
-			var artistIds = json.get("tracks").get("items").values().stream().map(track -> track.get("artists").index(0).get("id").text()).collect(Collectors.joining(","));
-			var artistJson = this.getJson(API_BASE + "artists?ids=" + artistIds);
-			if (artistJson != null) {
-				for (var artist : artistJson.get("artists").values()) {
-					for (var track : json.get("tracks").get("items").values()) {
-						if (track.get("artists").index(0).get("id").text().equals(artist.get("id").text())) {
-							track.get("artists").index(0).put("images", artist.get("images"));
-						}
-					}
+			var tracks = json.get("tracks").get("items").values();
+			var artistImages = this.getArtistImages(tracks.stream().map(track -> track.get("artists").index(0).get("id").text()).collect(Collectors.toList()));
+			for (var track : tracks) {
+				var artist = track.get("artists").index(0);
+				var images = artistImages.get(artist.get("id").text());
+				if (images != null) {
+					artist.put("images", images);
 				}
 			}
 		}
@@ -393,21 +529,30 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			return AudioReference.NO_TRACK;
 		}
 
-		var artistJson = this.getJson(API_BASE + "artists/" + json.get("artists").index(0).get("id").text());
-		if (artistJson == null) {
-			artistJson = JsonBrowser.newMap();
+		// the album already tells us how many tracks it has and contains the first page, so the remaining pages and the track details can be requested at once
+		var total = (int) json.get("total_tracks").asLong(0);
+		var pages = Math.max(1, Math.min((total + ALBUM_MAX_PAGE_ITEMS - 1) / ALBUM_MAX_PAGE_ITEMS, this.albumPageLimit));
+		var futures = new ArrayList<Future<JsonBrowser>>(pages);
+		List<JsonBrowser> tracksPages;
+		JsonBrowser artistImages;
+		try {
+			for (var i = 0; i < pages; i++) {
+				var firstPage = i == 0 ? json.get("tracks") : null;
+				var offset = i * ALBUM_MAX_PAGE_ITEMS;
+				futures.add(this.pageExecutor.submit(() -> this.getAlbumTracks(id, offset, firstPage)));
+			}
+			artistImages = this.getArtistImages(json.get("artists").index(0).get("id").text());
+			tracksPages = this.awaitPages(futures);
+		} finally {
+			for (var future : futures) {
+				future.cancel(true);
+			}
 		}
-
-
 		var tracks = new ArrayList<AudioTrack>();
-		JsonBrowser page;
-		var offset = 0;
-		var pages = 0;
-		do {
-			page = this.getJson(API_BASE + "albums/" + id + "/tracks?limit=" + ALBUM_MAX_PAGE_ITEMS + "&offset=" + offset);
-			offset += ALBUM_MAX_PAGE_ITEMS;
-
-			var tracksPage = this.getJson(API_BASE + "tracks/?ids=" + page.get("items").values().stream().map(track -> track.get("id").text()).collect(Collectors.joining(",")));
+		for (var tracksPage : tracksPages) {
+			if (tracksPage == null) {
+				continue;
+			}
 
 			for (var track : tracksPage.get("tracks").values()) {
 				var albumJson = JsonBrowser.newMap();
@@ -416,12 +561,13 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 				albumJson.put("images", json.get("images"));
 				track.put("album", albumJson);
 
-				track.get("artists").index(0).put("images", artistJson.get("images"));
+				if (artistImages != null) {
+					track.get("artists").index(0).put("images", artistImages);
+				}
 			}
 
 			tracks.addAll(this.parseTracks(tracksPage, preview));
 		}
-		while (page.get("next").text() != null && ++pages < this.albumPageLimit);
 
 		if (tracks.isEmpty()) {
 			return AudioReference.NO_TRACK;
@@ -431,19 +577,80 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 
 	}
 
+	/**
+	 * Fetches a page of album tracks, unless it is already given, and the full tracks of it since album tracks do not contain their ISRC.
+	 */
+	@Nullable
+	private JsonBrowser getAlbumTracks(String id, int offset, @Nullable JsonBrowser page) throws IOException {
+		if (page == null || page.isNull()) {
+			page = this.getJson(API_BASE + "albums/" + id + "/tracks?limit=" + ALBUM_MAX_PAGE_ITEMS + "&offset=" + offset);
+		}
+		if (page == null || page.get("items").values().isEmpty()) {
+			return null;
+		}
+		return this.getJson(API_BASE + "tracks/?ids=" + page.get("items").values().stream().map(track -> track.get("id").text()).collect(Collectors.joining(",")));
+	}
+
 	public AudioItem getPlaylist(String id, boolean preview) throws IOException {
-		var json = this.getJson(API_BASE + "playlists/" + id);
+		var cacheKey = preview ? id + ":preview" : id;
+		var cached = this.playlistCache.get(cacheKey);
+		// if we know the playlist already, we only need the header to check whether its snapshot changed
+		var fields = cached == null ? PLAYLIST_FIELDS : PLAYLIST_HEADER_FIELDS;
+		var json = this.getJson(API_BASE + "playlists/" + id + "?fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8));
 		if (json == null) {
 			return AudioReference.NO_TRACK;
 		}
 
+		var total = (int) json.get("tracks").get("total").asLong(0);
+		var snapshotId = json.get("snapshot_id").text();
+		List<AudioTrack> tracks;
+		if (cached != null && cached.snapshotId.equals(snapshotId)) {
+			tracks = new ArrayList<>(cached.tracks.size());
+			for (var track : cached.tracks) {
+				tracks.add(track.makeClone());
+			}
+		} else {
+			tracks = this.getPlaylistTracks(id, total, cached == null ? json.get("tracks") : null, preview);
+			if (snapshotId != null && !tracks.isEmpty()) {
+				// the returned tracks are played and get user data set, so the cache keeps its own copies
+				var cachedTracks = new ArrayList<AudioTrack>(tracks.size());
+				for (var track : tracks) {
+					cachedTracks.add(track.makeClone());
+				}
+				this.playlistCache.put(cacheKey, new CachedPlaylist(snapshotId, cachedTracks));
+			}
+		}
+
+		if (tracks.isEmpty()) {
+			return AudioReference.NO_TRACK;
+		}
+
+		return new SpotifyAudioPlaylist(json.get("name").text(), tracks, ExtendedAudioPlaylist.Type.PLAYLIST, json.get("external_urls").get("spotify").text(), json.get("images").index(0).get("url").text(), json.get("owner").get("display_name").text(), total);
+	}
+
+	/**
+	 * Fetches all pages of a playlist at once, since the playlist already tells us how many tracks it has.
+	 *
+	 * @param firstPage the first page if the playlist response already contains it
+	 */
+	private List<AudioTrack> getPlaylistTracks(String id, int total, @Nullable JsonBrowser firstPage, boolean preview) throws IOException {
+		var pages = Math.max(1, Math.min((total + PLAYLIST_MAX_PAGE_ITEMS - 1) / PLAYLIST_MAX_PAGE_ITEMS, this.playlistPageLimit));
+		var urls = new ArrayList<String>(pages);
+		for (var i = firstPage == null ? 0 : 1; i < pages; i++) {
+			urls.add(API_BASE + "playlists/" + id + "/tracks?limit=" + PLAYLIST_MAX_PAGE_ITEMS + "&offset=" + i * PLAYLIST_MAX_PAGE_ITEMS + "&fields=" + URLEncoder.encode(PLAYLIST_TRACKS_FIELDS, StandardCharsets.UTF_8));
+		}
+
+		var trackPages = new ArrayList<JsonBrowser>(pages);
+		if (firstPage != null) {
+			trackPages.add(firstPage);
+		}
+		trackPages.addAll(this.getJsonPages(urls));
+
 		var tracks = new ArrayList<AudioTrack>();
-		JsonBrowser page;
-		var offset = 0;
-		var pages = 0;
-		do {
-			page = this.getJson(API_BASE + "playlists/" + id + "/tracks?limit=" + PLAYLIST_MAX_PAGE_ITEMS + "&offset=" + offset);
-			offset += PLAYLIST_MAX_PAGE_ITEMS;
+		for (var page : trackPages) {
+			if (page == null) {
+				continue;
+			}
 
 			for (var value : page.get("items").values()) {
 				var track = value.get("track");
@@ -453,15 +660,8 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 
 				tracks.add(this.parseTrack(track, preview));
 			}
-
-		}
-		while (page.get("next").text() != null && ++pages < this.playlistPageLimit);
-
-		if (tracks.isEmpty()) {
-			return AudioReference.NO_TRACK;
 		}
-
-		return new SpotifyAudioPlaylist(json.get("name").text(), tracks, ExtendedAudioPlaylist.Type.PLAYLIST, json.get("external_urls").get("spotify").text(), json.get("images").index(0).get("url").text(), json.get("owner").get("display_name").text(), (int) json.get("tracks").get("total").asLong(0));
+		return tracks;
 	}
 
 	public AudioItem getArtist(String id, boolean preview) throws IOException {
@@ -470,6 +670,8 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			return AudioReference.NO_TRACK;
 		}
 
+		this.artistImages.put(id, json.get("images"));
+
 		var tracksJson = this.getJson(API_BASE + "artists/" + id + "/top-tracks?market=" + this.countryCode);
 		if (tracksJson == null || tracksJson.get("tracks").values().isEmpty()) {
 			return AudioReference.NO_TRACK;
@@ -488,14 +690,60 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 			return AudioReference.NO_TRACK;
 		}
 
-		var artistJson = this.getJson(API_BASE + "artists/" + json.get("artists").index(0).get("id").text());
-		if (artistJson != null) {
-			json.get("artists").index(0).put("images", artistJson.get("images"));
+		var artistImages = this.getArtistImages(json.get("artists").index(0).get("id").text());
+		if (artistImages != null) {
+			json.get("artists").index(0).put("images", artistImages);
 		}
 
 		return this.parseTrack(json, preview);
 	}
 
+	@Nullable
+	private JsonBrowser getArtistImages(String id) throws IOException {
+		return this.getArtistImages(List.of(id)).get(id);
+	}
+
+	/**
+	 * Returns the images of the given artists by their id. Artists which are not cached yet are fetched in batches.
+	 */
+	private Map<String, JsonBrowser> getArtistImages(Collection<String> ids) throws IOException {
+		var images = new HashMap<String, JsonBrowser>();
+		var missing = new ArrayList<String>();
+		for (var id : new LinkedHashSet<>(ids)) {
+			if (id == null) {
+				continue;
+			}
+			var cached = this.artistImages.get(id);
+			if (cached != null) {
+				images.put(id, cached);
+			} else {
+				missing.add(id);
+			}
+		}
+
+		for (var i = 0; i < missing.size(); i += ARTISTS_MAX_PAGE_ITEMS) {
+			var batch = missing.subList(i, Math.min(i + ARTISTS_MAX_PAGE_ITEMS, missing.size()));
+			List<JsonBrowser> artists;
+			if (batch.size() == 1) {
+				var json = this.getJson(API_BASE + "artists/" + batch.get(0));
+				artists = json == null ? List.of() : List.of(json);
+			} else {
+				var json = this.getJson(API_BASE + "artists?ids=" + String.join(",", batch));
+				artists = json == null ? List.of() : json.get("artists").values();
+			}
+
+			for (var artist : artists) {
+				var id = artist.get("id").text();
+				if (id == null) {
+					continue;
+				}
+				images.put(id, artist.get("images"));
+				this.artistImages.put(id, artist.get("images"));
+			}
+		}
+		return images;
+	}
+
 	private List<AudioTrack> parseTracks(JsonBrowser json, boolean preview) {
 		var tracks = new ArrayList<AudioTrack>();
 		for (var value : json.get("tracks").values()) {
@@ -515,7 +763,7 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 		return tracks;
 	}
 
-	private AudioTrack parseTrack(JsonBrowser json, boolean preview) {
+	AudioTrack parseTrack(JsonBrowser json, boolean preview) {
 		return new SpotifyAudioTrack(
 			new AudioTrackInfo(
 				json.get("name").text(),
@@ -539,21 +787,20 @@ public class SpotifySourceManager extends MirroringAudioSourceManager implements
 
 	@Override
 	public void shutdown() {
-		try {
-			this.httpInterfaceManager.close();
-		} catch (IOException e) {
-			log.error("Failed to close HTTP interface manager", e);
-		}
+		this.tokenTracker.close();
+		this.spTokenRefresher.close();
+		ExecutorTools.shutdownExecutor(this.pageExecutor, "spotify page fetcher");
+		super.shutdown();
 	}
 
-	@Override
-	public void configureRequests(Function<RequestConfig, RequestConfig> configurator) {
-		this.httpInterfaceManager.configureRequests(configurator);
-	}
+	private static class CachedPlaylist {
+		private final String snapshotId;
+		private final List<AudioTrack> tracks;
 
-	@Override
-	public void configureBuilder(Consumer<HttpClientBuilder> configurator) {
-		this.httpInterfaceManager.configureBuilder(configurator);
+		private CachedPlaylist(String snapshotId, List<AudioTrack> tracks) {
+			this.snapshotId = snapshotId;
+			this.tracks = tracks;
+		}
 	}
 
 }
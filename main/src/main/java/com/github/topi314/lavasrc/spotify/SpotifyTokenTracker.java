@@ -1,6 +1,7 @@
 package com.github.topi314.lavasrc.spotify;
 
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.TokenRefresher;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -11,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
@@ -22,13 +24,17 @@ public class SpotifyTokenTracker {
 	private final String clientId;
 	private final String clientSecret;
 
-	private String accessToken;
-	private Instant expires;
+	private final TokenRefresher refresher;
 
 	public SpotifyTokenTracker(SpotifySourceManager source, String clientId, String clientSecret) {
+		this(source, clientId, clientSecret, TokenRefresher.DEFAULT_REFRESH_MARGIN);
+	}
+
+	public SpotifyTokenTracker(SpotifySourceManager source, String clientId, String clientSecret, Duration refreshMargin) {
 		this.sourceManager = source;
 		this.clientId = clientId;
 		this.clientSecret = clientSecret;
+		this.refresher = new TokenRefresher("Spotify access token", this::fetchAccessToken, refreshMargin);
 
 		if (!hasValidCredentials()) {
 			log.info("Missing/invalid credentials, falling back to public token.");
@@ -36,18 +42,22 @@ public class SpotifyTokenTracker {
 	}
 
 	public String getAccessToken() {
-		if (accessToken == null || expires == null || expires.isBefore(Instant.now())) {
-			synchronized (this) {
-				if (accessToken == null || expires == null || expires.isBefore(Instant.now())) {
-					refreshAccessToken();
-				}
-			}
+		try {
+			return this.refresher.getToken();
+		} catch (IOException e) {
+			throw new RuntimeException("Access token refreshing failed", e);
 		}
+	}
+
+	public void setRefreshMargin(Duration refreshMargin) {
+		this.refresher.setRefreshMargin(refreshMargin);
+	}
 
-		return accessToken;
+	public void close() {
+		this.refresher.close();
 	}
 
-	private void refreshAccessToken() {
+	private TokenRefresher.Token fetchAccessToken() throws IOException {
 		boolean usePublicToken = !hasValidCredentials();
 		HttpUriRequest request;
 
@@ -59,24 +69,20 @@ public class SpotifyTokenTracker {
 			request = new HttpGet("https://open.spotify.com/get_access_token");
 		}
 
-		try {
-			var json = LavaSrcTools.fetchResponseAsJson(sourceManager.getHttpInterface(), request);
-
-			if (!json.get("error").isNull()) {
-				String error = json.get("error").text();
-				throw new RuntimeException(error);
-			}
-
-			if (!usePublicToken) {
-				accessToken = json.get("access_token").text();
-				expires = Instant.now().plusSeconds(json.get("expires_in").asLong(0));
-			} else {
-				accessToken = json.get("accessToken").text();
-				expires = Instant.ofEpochMilli(json.get("accessTokenExpirationTimestampMs").asLong(0));
-			}
-		} catch (IOException e) {
-			throw new RuntimeException("Access token refreshing failed", e);
+		var json = LavaSrcTools.fetchResponseAsJson(sourceManager.getHttpInterface(), request);
+		if (json == null) {
+			throw new IOException("No access token response received");
+		}
+
+		if (!json.get("error").isNull()) {
+			String error = json.get("error").text();
+			throw new IOException(error);
+		}
+
+		if (!usePublicToken) {
+			return new TokenRefresher.Token(json.get("access_token").text(), Instant.now().plusSeconds(json.get("expires_in").asLong(0)));
 		}
+		return new TokenRefresher.Token(json.get("accessToken").text(), Instant.ofEpochMilli(json.get("accessTokenExpirationTimestampMs").asLong(0)));
 	}
 
 	private boolean hasValidCredentials() {
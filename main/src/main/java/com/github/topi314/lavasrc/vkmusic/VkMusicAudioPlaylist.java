@@ -11,4 +11,9 @@ public class VkMusicAudioPlaylist extends ExtendedAudioPlaylist {
 		super(name, tracks, type, identifier, artworkURL, author, totalTracks);
 	}
 
+	@Override
+	public VkMusicAudioPlaylist withTracks(List<AudioTrack> tracks) {
+		return new VkMusicAudioPlaylist(this.getName(), tracks, this.type, this.url, this.artworkURL, this.author, this.totalTracks);
+	}
+
 }
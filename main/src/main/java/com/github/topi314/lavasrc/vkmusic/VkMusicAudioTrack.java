@@ -27,7 +27,7 @@ public class VkMusicAudioTrack extends ExtendedAudioTrack {
 
 	@Override
 	public void process(LocalAudioTrackExecutor executor) throws Exception {
-		try (var httpInterface = this.sourceManager.getHttpInterface()) {
+		try (var httpInterface = this.sourceManager.getStreamHttpInterface()) {
 			try (var stream = new PersistentHttpStream(httpInterface, getMp3TrackUri(), this.trackInfo.length)) {
 				processDelegate(new Mp3AudioTrack(this.trackInfo, stream), executor);
 			}
@@ -51,7 +51,7 @@ public class VkMusicAudioTrack extends ExtendedAudioTrack {
 
 	@Override
 	protected AudioTrack makeShallowClone() {
-		return new VkMusicAudioTrack(this.trackInfo, this.sourceManager);
+		return new VkMusicAudioTrack(this.trackInfo, this.albumName, this.albumUrl, this.artistUrl, this.artistArtworkUrl, this.previewUrl, this.sourceManager);
 	}
 
 	@Override
@@ -8,7 +8,7 @@ import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
-import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.LavaSrcHttpPool;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
@@ -46,10 +46,31 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 	public static final String PUBLIC_API_BASE = "https://api.vk.com/method/";
 	public static final String API_VERSION = "5.199";
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST);
+	public static final double REQUEST_RATE = 3;
+	public static final int REQUEST_BURST = 3;
+	// only ever append to this list, encoded tracks refer to the templates by index
+	public static final List<String> URL_TEMPLATES = List.of(
+		"https://vk.com/music/album/",
+		"https://vk.com/artist/"
+	);
+	public static final List<String> API_ENDPOINTS = List.of(
+		"/method/audio.search",
+		"/method/audio.searchAlbums",
+		"/method/audio.searchArtists",
+		"/method/audio.searchPlaylists",
+		"/method/audio.get",
+		"/method/audio.getById",
+		"/method/audio.getPlaylistById",
+		"/method/audio.getArtistById",
+		"/method/audio.getAudiosByArtist",
+		"/method/audio.getRecommendations",
+		"/method/audio.getLyrics"
+	);
 
 	private static final Logger log = LoggerFactory.getLogger(VkMusicSourceManager.class);
 
 	private final HttpInterfaceManager httpInterfaceManager;
+	private final HttpInterfaceManager streamHttpInterfaceManager;
 
 	private String userToken;
 	private int artistLoadLimit;
@@ -61,7 +82,9 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 			throw new IllegalArgumentException("Vk Music user token must be set");
 		}
 		this.userToken = userToken;
-		this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+		this.httpInterfaceManager = LavaSrcHttpPool.createDefaultThreadLocalManager();
+		this.streamHttpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+		this.requestScheduler.setRate(REQUEST_RATE, REQUEST_BURST);
 	}
 
 	public void setUserToken(String userToken) {
@@ -90,6 +113,16 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 		return "vkmusic";
 	}
 
+	@Override
+	protected List<String> getUrlTemplates() {
+		return URL_TEMPLATES;
+	}
+
+	@Override
+	protected List<String> getApiEndpoints() {
+		return API_ENDPOINTS;
+	}
+
 	@Override
 	public @Nullable AudioSearchResult loadSearch(@NotNull String query, @NotNull Set<AudioSearchResult.Type> types) {
 		if (types.isEmpty()) {
@@ -246,14 +279,18 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 
 	@Override
 	public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+		return this.loadItemOnce(reference.identifier, () -> this.loadItem(reference.identifier));
+	}
+
+	public AudioItem loadItem(String identifier) {
 		try {
-			if (reference.identifier.startsWith(SEARCH_PREFIX)) {
-				return this.getSearch(reference.identifier.substring(SEARCH_PREFIX.length()));
+			if (identifier.startsWith(SEARCH_PREFIX)) {
+				return this.getSearch(identifier.substring(SEARCH_PREFIX.length()));
 			}
-			if (reference.identifier.startsWith(RECOMMENDATIONS_PREFIX)) {
-				return this.getRecommendations(reference.identifier.substring(RECOMMENDATIONS_PREFIX.length()));
+			if (identifier.startsWith(RECOMMENDATIONS_PREFIX)) {
+				return this.getRecommendations(identifier.substring(RECOMMENDATIONS_PREFIX.length()));
 			}
-			var uri = reference.identifier;
+			var uri = identifier;
 
 			var playlistFromHeader = VK_PLAYLIST_HEADER_REGEX.matcher(uri);
 			if (playlistFromHeader.find()) {
@@ -437,7 +474,7 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 		var uri = PUBLIC_API_BASE + method + "?v=" + API_VERSION + headers + "&access_token=" + this.userToken;
 		var request = new HttpGet(uri);
 		request.setHeader("Content-Type", "application/json");
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return this.requestScheduler.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
 	}
 
 	private List<AudioTrack> parseTracks(JsonBrowser json) {
@@ -518,17 +555,20 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 	@Override
 	public void configureRequests(Function<RequestConfig, RequestConfig> configurator) {
 		this.httpInterfaceManager.configureRequests(configurator);
+		this.streamHttpInterfaceManager.configureRequests(configurator);
 	}
 
 	@Override
 	public void configureBuilder(Consumer<HttpClientBuilder> configurator) {
 		this.httpInterfaceManager.configureBuilder(configurator);
+		this.streamHttpInterfaceManager.configureBuilder(configurator);
 	}
 
 	@Override
 	public void shutdown() {
 		try {
 			this.httpInterfaceManager.close();
+			this.streamHttpInterfaceManager.close();
 		} catch (IOException e) {
 			log.error("Failed to close HTTP interface manager", e);
 		}
@@ -537,4 +577,8 @@ public class VkMusicSourceManager extends ExtendedAudioSourceManager implements
 	public HttpInterface getHttpInterface() {
 		return this.httpInterfaceManager.getInterface();
 	}
+
+	public HttpInterface getStreamHttpInterface() {
+		return this.streamHttpInterfaceManager.getInterface();
+	}
 }
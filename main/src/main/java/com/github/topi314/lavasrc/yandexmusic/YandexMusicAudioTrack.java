@@ -34,7 +34,7 @@ public class YandexMusicAudioTrack extends ExtendedAudioTrack {
 	@Override
 	public void process(LocalAudioTrackExecutor executor) throws Exception {
 		var downloadLink = this.getDownloadURL(this.trackInfo.identifier);
-		try (var httpInterface = this.sourceManager.getHttpInterface()) {
+		try (var httpInterface = this.sourceManager.getStreamHttpInterface()) {
 			try (var stream = new PersistentHttpStream(httpInterface, new URI(downloadLink), this.trackInfo.length)) {
 				processDelegate(new Mp3AudioTrack(this.trackInfo, stream), executor);
 			}
@@ -43,7 +43,7 @@ public class YandexMusicAudioTrack extends ExtendedAudioTrack {
 
 	@Override
 	protected AudioTrack makeShallowClone() {
-		return new YandexMusicAudioTrack(this.trackInfo, this.sourceManager);
+		return new YandexMusicAudioTrack(this.trackInfo, this.albumName, this.albumUrl, this.artistUrl, this.artistArtworkUrl, this.sourceManager);
 	}
 
 	@Override
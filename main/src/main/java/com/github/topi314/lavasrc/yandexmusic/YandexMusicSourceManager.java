@@ -8,7 +8,7 @@ import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
-import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.LavaSrcHttpPool;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
@@ -49,10 +49,36 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 	public static final int PLAYLIST_MAX_PAGE_ITEMS = 100;
 	public static final int ALBUM_MAX_PAGE_ITEMS = 50;
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST);
+	public static final double REQUEST_RATE = 10;
+	public static final int REQUEST_BURST = 10;
+	// only ever append to this list, encoded tracks refer to the templates by index
+	public static final List<String> URL_TEMPLATES = List.of(
+		"https://music.yandex.ru/album/",
+		"https://music.yandex.ru/artist/",
+		"https://music.yandex.com/album/",
+		"https://music.yandex.com/artist/",
+		"https://music.yandex.kz/album/",
+		"https://music.yandex.kz/artist/",
+		"https://music.yandex.by/album/",
+		"https://music.yandex.by/artist/",
+		"https://avatars.yandex.net/get-music-content/"
+	);
+	public static final List<String> API_ENDPOINTS = List.of(
+		"/search",
+		"/tracks/{id}",
+		"/tracks/{id}/lyrics",
+		"/tracks/{id}/similar",
+		"/tracks/{id}/download-info",
+		"/albums/{id}/with-tracks",
+		"/artists/{id}",
+		"/artists/{id}/tracks",
+		"/users/{user}/playlists/{id}"
+	);
 
 	private static final Logger log = LoggerFactory.getLogger(YandexMusicSourceManager.class);
 
 	private final HttpInterfaceManager httpInterfaceManager;
+	private final HttpInterfaceManager streamHttpInterfaceManager;
 
 	private String accessToken;
 	private int artistLoadLimit;
@@ -64,7 +90,9 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 			throw new IllegalArgumentException("Yandex Music accessToken must be set");
 		}
 		this.accessToken = accessToken;
-		this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+		this.httpInterfaceManager = LavaSrcHttpPool.createDefaultThreadLocalManager();
+		this.streamHttpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+		this.requestScheduler.setRate(REQUEST_RATE, REQUEST_BURST);
 	}
 
 	public void setAccessToken(String accessToken) {
@@ -92,6 +120,16 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 		return "yandexmusic";
 	}
 
+	@Override
+	protected List<String> getUrlTemplates() {
+		return URL_TEMPLATES;
+	}
+
+	@Override
+	protected List<String> getApiEndpoints() {
+		return API_ENDPOINTS;
+	}
+
 	private AudioSearchResult getSearchResult(String query, Set<AudioSearchResult.Type> setOfTypes) throws IOException {
 		var json = this.getJson(
 			PUBLIC_API_BASE + "/search"
@@ -227,8 +265,12 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 
 	@NotNull
 	private BasicAudioLyrics parseLyrics(String downloadUrl, AudioTrack track, String provider) throws IOException {
+		return this.parseLyrics(this.getDownloadStrings(downloadUrl, "downloadinfo-text-page"), track.getDuration(), provider);
+	}
+
+	@NotNull
+	BasicAudioLyrics parseLyrics(String[] lines, long duration, String provider) {
 		var lyrics = new ArrayList<AudioLyrics.Line>();
-		var lines = this.getDownloadStrings(downloadUrl, "downloadinfo-text-page");
 		var allText = new StringBuilder();
 
 		for (int i = 0; i < lines.length; i++) {
@@ -240,9 +282,9 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 			Duration nextTimestamp;
 			if (i + 1 < lines.length) {
 				var line = this.extractLine(lines[i + 1]);
-				nextTimestamp = line != null ? line.getTimestamp() : Duration.ofMillis(track.getDuration());
+				nextTimestamp = line != null ? line.getTimestamp() : Duration.ofMillis(duration);
 			} else {
-				nextTimestamp = Duration.ofMillis(track.getDuration());
+				nextTimestamp = Duration.ofMillis(duration);
 			}
 
 			allText.append(lyricsLine.getLine()).append("\n");
@@ -281,16 +323,20 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 
 	@Override
 	public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+		return this.loadItemOnce(reference.identifier, () -> this.loadItem(reference.identifier));
+	}
+
+	public AudioItem loadItem(String identifier) {
 		try {
-			if (reference.identifier.startsWith(SEARCH_PREFIX)) {
-				return this.getSearch(reference.identifier.substring(SEARCH_PREFIX.length()));
+			if (identifier.startsWith(SEARCH_PREFIX)) {
+				return this.getSearch(identifier.substring(SEARCH_PREFIX.length()));
 			}
 
-			if (reference.identifier.startsWith(RECOMMENDATIONS_PREFIX)) {
-				return this.getRecommendations(reference.identifier.substring(RECOMMENDATIONS_PREFIX.length()));
+			if (identifier.startsWith(RECOMMENDATIONS_PREFIX)) {
+				return this.getRecommendations(identifier.substring(RECOMMENDATIONS_PREFIX.length()));
 			}
 
-			var matcher = URL_PATTERN.matcher(reference.identifier);
+			var matcher = URL_PATTERN.matcher(identifier);
 			if (matcher.find()) {
 				var domainEnd = matcher.group("domain");
 				switch (matcher.group("type1")) {
@@ -310,7 +356,7 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 				}
 				return null;
 			}
-			matcher = URL_PLAYLIST_PATTERN.matcher(reference.identifier);
+			matcher = URL_PLAYLIST_PATTERN.matcher(identifier);
 			if (matcher.find()) {
 				var userId = matcher.group("identifier");
 				var playlistId = matcher.group("identifier2");
@@ -469,7 +515,7 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 		request.setHeader("Authorization", "OAuth " + this.accessToken);
 		request.setHeader("User-Agent", "Yandex-Music-API");
 		request.setHeader("X-Yandex-Music-Client", "YandexMusicAndroid/24023621");
-		return LavaSrcTools.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
+		return this.requestScheduler.fetchResponseAsJson(this.httpInterfaceManager.getInterface(), request);
 	}
 
 	public String[] getDownloadStrings(String uri, String name) throws IOException {
@@ -593,17 +639,20 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 	@Override
 	public void configureRequests(Function<RequestConfig, RequestConfig> configurator) {
 		this.httpInterfaceManager.configureRequests(configurator);
+		this.streamHttpInterfaceManager.configureRequests(configurator);
 	}
 
 	@Override
 	public void configureBuilder(Consumer<HttpClientBuilder> configurator) {
 		this.httpInterfaceManager.configureBuilder(configurator);
+		this.streamHttpInterfaceManager.configureBuilder(configurator);
 	}
 
 	@Override
 	public void shutdown() {
 		try {
 			this.httpInterfaceManager.close();
+			this.streamHttpInterfaceManager.close();
 		} catch (IOException e) {
 			log.error("Failed to close HTTP interface manager", e);
 		}
@@ -612,4 +661,8 @@ public class YandexMusicSourceManager extends ExtendedAudioSourceManager impleme
 	public HttpInterface getHttpInterface() {
 		return this.httpInterfaceManager.getInterface();
 	}
+
+	public HttpInterface getStreamHttpInterface() {
+		return this.streamHttpInterfaceManager.getInterface();
+	}
 }
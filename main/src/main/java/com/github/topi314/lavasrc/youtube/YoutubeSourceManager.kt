@@ -9,12 +9,12 @@ import com.github.topi314.lavasearch.result.AudioText
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult
 import com.github.topi314.lavasearch.result.BasicAudioText
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist
+import com.github.topi314.lavasrc.LavaSrcHttpPool
 import com.github.topi314.lavasrc.youtube.innertube.MusicResponsiveListItemRenderer
 import com.github.topi314.lavasrc.youtube.innertube.requestLyrics
 import com.github.topi314.lavasrc.youtube.innertube.requestMusicAutoComplete
 import com.github.topi314.lavasrc.youtube.innertube.takeFirstSearchResult
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager
-import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo
 import dev.schlaubi.lyrics.LyricsNotFoundException
@@ -52,7 +52,7 @@ class YoutubeSearchManager(
         )
     }
 
-    private val httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager()
+    private val httpInterfaceManager = LavaSrcHttpPool.createDefaultThreadLocalManager()
     override fun getSourceName(): String = "youtube"
 
     override fun loadLyrics(track: AudioTrack): AudioLyrics? = try {
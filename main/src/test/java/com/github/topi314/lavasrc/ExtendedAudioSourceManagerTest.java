@@ -0,0 +1,218 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Encoded tracks are persisted by clients, so the byte values below must never change.
+class ExtendedAudioSourceManagerTest {
+
+	private static final String ALBUM_TEMPLATE = "https://example.com/album/";
+	private static final String ARTIST_TEMPLATE = "https://example.com/artist/";
+
+	private final TestSourceManager sourceManager = new TestSourceManager();
+
+	@Test
+	void readsVersion0WithoutExtendedFields() throws IOException {
+		var info = this.sourceManager.decodeTrack(input(output -> {
+		}));
+
+		assertNull(info.albumName);
+		assertNull(info.albumUrl);
+		assertNull(info.artistUrl);
+		assertNull(info.artistArtworkUrl);
+		assertNull(info.previewUrl);
+		assertFalse(info.isPreview);
+		assertEquals(0, info.version);
+	}
+
+	@Test
+	void readsVersion1WithoutVersionByte() throws IOException {
+		var info = this.sourceManager.decodeTrack(input(output -> {
+			DataFormatTools.writeNullableText(output, "Album");
+			DataFormatTools.writeNullableText(output, "https://example.com/album/1");
+			DataFormatTools.writeNullableText(output, "https://example.com/artist/2");
+			DataFormatTools.writeNullableText(output, null);
+			DataFormatTools.writeNullableText(output, "http://example.com/preview.mp3");
+			output.writeBoolean(true);
+		}));
+
+		assertEquals("Album", info.albumName);
+		assertEquals("https://example.com/album/1", info.albumUrl);
+		assertEquals("https://example.com/artist/2", info.artistUrl);
+		assertNull(info.artistArtworkUrl);
+		assertEquals("http://example.com/preview.mp3", info.previewUrl);
+		assertTrue(info.isPreview);
+		assertEquals(1, info.version);
+	}
+
+	@Test
+	void readsVersion1WithoutAlbumName() throws IOException {
+		var info = this.sourceManager.decodeTrack(input(output -> {
+			DataFormatTools.writeNullableText(output, null);
+			DataFormatTools.writeNullableText(output, null);
+			DataFormatTools.writeNullableText(output, null);
+			DataFormatTools.writeNullableText(output, "https://example.com/artwork.jpg");
+			DataFormatTools.writeNullableText(output, null);
+			output.writeBoolean(false);
+		}));
+
+		assertNull(info.albumName);
+		assertEquals("https://example.com/artwork.jpg", info.artistArtworkUrl);
+		assertEquals(1, info.version);
+	}
+
+	@Test
+	void roundTripsCurrentVersion() throws IOException {
+		var track = new TestTrack("Album", ALBUM_TEMPLATE + "1", ARTIST_TEMPLATE + "2", "https://example.com/artwork.jpg", "http://example.com/preview.mp3", true);
+
+		var info = this.sourceManager.decodeTrack(input(output -> this.sourceManager.encodeTrack(track, output)));
+
+		assertEquals("Album", info.albumName);
+		assertEquals(ALBUM_TEMPLATE + "1", info.albumUrl);
+		assertEquals(ARTIST_TEMPLATE + "2", info.artistUrl);
+		assertEquals("https://example.com/artwork.jpg", info.artistArtworkUrl);
+		assertEquals("http://example.com/preview.mp3", info.previewUrl);
+		assertTrue(info.isPreview);
+		assertEquals(ExtendedAudioSourceManager.ENCODING_VERSION, info.version);
+	}
+
+	@Test
+	void roundTripsCurrentVersionWithoutFields() throws IOException {
+		var track = new TestTrack(null, null, null, null, null, false);
+
+		var info = this.sourceManager.decodeTrack(input(output -> this.sourceManager.encodeTrack(track, output)));
+
+		assertNull(info.albumName);
+		assertNull(info.albumUrl);
+		assertNull(info.artistUrl);
+		assertNull(info.artistArtworkUrl);
+		assertNull(info.previewUrl);
+		assertFalse(info.isPreview);
+		assertEquals(ExtendedAudioSourceManager.ENCODING_VERSION, info.version);
+	}
+
+	@Test
+	void writesVersionByte() throws IOException {
+		var bytes = bytes(output -> this.sourceManager.encodeTrack(new TestTrack(null, null, null, null, null, false), output));
+
+		assertEquals(0x80 | ExtendedAudioSourceManager.ENCODING_VERSION, bytes[0] & 0xFF);
+	}
+
+	@Test
+	void writesEveryUrlTag() throws IOException {
+		assertUrl(null, 0);
+		assertUrl("http://example.com/literal", 1);
+		assertUrl("https://example.com/https", 2);
+		assertUrl(ALBUM_TEMPLATE + "1", 3);
+		assertUrl(ARTIST_TEMPLATE + "2", 4);
+	}
+
+	@Test
+	void rejectsUnknownUrlTemplate() {
+		var input = input(output -> {
+			output.writeByte(0x80 | ExtendedAudioSourceManager.ENCODING_VERSION);
+			DataFormatTools.writeNullableText(output, null);
+			output.writeByte(3 + 2);
+			output.writeUTF("1");
+		});
+
+		assertThrows(IOException.class, () -> this.sourceManager.decodeTrack(input));
+	}
+
+	@Test
+	void rejectsNewerVersion() {
+		var input = input(output -> output.writeByte(0x80 | (ExtendedAudioSourceManager.ENCODING_VERSION + 1)));
+
+		assertThrows(IOException.class, () -> this.sourceManager.decodeTrack(input));
+	}
+
+	private void assertUrl(String url, int tag) throws IOException {
+		var bytes = bytes(output -> this.sourceManager.writeUrl(output, url));
+		assertEquals(tag, bytes[0]);
+
+		var in = new DataInputStream(new ByteArrayInputStream(bytes));
+		assertEquals(url, this.sourceManager.readUrl(in));
+		assertEquals(0, in.available());
+	}
+
+	private static byte[] bytes(Writer writer) throws IOException {
+		var baos = new ByteArrayOutputStream();
+		writer.write(new DataOutputStream(baos));
+		return baos.toByteArray();
+	}
+
+	// appends the position lavaplayer writes after the source fields, decodeTrack relies on it to detect version 0
+	private static DataInputStream input(Writer writer) {
+		try {
+			var baos = new ByteArrayOutputStream();
+			var output = new DataOutputStream(baos);
+			writer.write(output);
+			output.writeLong(0);
+			return new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private interface Writer {
+		void write(DataOutput output) throws IOException;
+	}
+
+	private static class TestSourceManager extends ExtendedAudioSourceManager {
+
+		@Override
+		protected List<String> getUrlTemplates() {
+			return List.of(ALBUM_TEMPLATE, ARTIST_TEMPLATE);
+		}
+
+		@Override
+		public String getSourceName() {
+			return "test";
+		}
+
+		@Override
+		public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
+			return null;
+		}
+
+		@Override
+		public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) {
+			return null;
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+	}
+
+	private static class TestTrack extends ExtendedAudioTrack {
+
+		TestTrack(String albumName, String albumUrl, String artistUrl, String artistArtworkUrl, String previewUrl, boolean isPreview) {
+			super(new AudioTrackInfo("Title", "Author", 1000, "id", false, "https://example.com/track/id"), albumName, albumUrl, artistUrl, artistArtworkUrl, previewUrl, isPreview);
+		}
+
+		@Override
+		public void process(LocalAudioTrackExecutor executor) {
+		}
+
+	}
+
+}
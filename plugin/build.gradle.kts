@@ -20,6 +20,8 @@ dependencies {
 	implementation(project(":protocol"))
 	compileOnly("dev.lavalink.youtube:common:1.1.0")
 	compileOnly("com.github.topi314.lavasearch:lavasearch:1.0.0")
+	// provided by Lavalink, which serves its metrics from the default registry
+	compileOnly("io.prometheus:simpleclient:0.16.0")
 	implementation("com.github.topi314.lavasearch:lavasearch-plugin-api:1.0.0")
 	implementation("com.github.topi314.lavalyrics:lavalyrics-plugin-api:1.0.0")
 
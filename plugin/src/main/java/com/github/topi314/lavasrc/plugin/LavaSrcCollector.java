@@ -0,0 +1,93 @@
+package com.github.topi314.lavasrc.plugin;
+
+import com.github.topi314.lavasrc.CircuitBreaker;
+import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
+import com.github.topi314.lavasrc.mirror.MirroringNegativeCache;
+import com.github.topi314.lavasrc.mirror.MirroringResolutionCache;
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Exports the current state of the caches, rate limits and circuit breakers of LavaSrc whenever Prometheus scrapes.
+ */
+public class LavaSrcCollector extends Collector {
+
+	private final Supplier<List<ExtendedAudioSourceManager>> sourceManagers;
+	private final Supplier<Map<String, CircuitBreaker>> circuitBreakers;
+	@Nullable
+	private final MirroringResolutionCache resolutionCache;
+	@Nullable
+	private final MirroringNegativeCache negativeCache;
+
+	public LavaSrcCollector(Supplier<List<ExtendedAudioSourceManager>> sourceManagers, Supplier<Map<String, CircuitBreaker>> circuitBreakers, @Nullable MirroringResolutionCache resolutionCache, @Nullable MirroringNegativeCache negativeCache) {
+		this.sourceManagers = sourceManagers;
+		this.circuitBreakers = circuitBreakers;
+		this.resolutionCache = resolutionCache;
+		this.negativeCache = negativeCache;
+	}
+
+	@Override
+	public List<MetricFamilySamples> collect() {
+		var cacheLabels = List.of("cache", "source");
+		var cacheHits = new CounterMetricFamily("lavasrc_cache_hits", "Lookups served from a LavaSrc cache", cacheLabels);
+		var cacheMisses = new CounterMetricFamily("lavasrc_cache_misses", "Lookups not served from a LavaSrc cache", cacheLabels);
+		var cacheSize = new GaugeMetricFamily("lavasrc_cache_size", "Entries in a LavaSrc cache", cacheLabels);
+		var sourceLabels = List.of("source");
+		var throttled = new GaugeMetricFamily("lavasrc_rate_limit_throttled", "Whether the API currently asked a source to not send any requests", sourceLabels);
+		var queued = new GaugeMetricFamily("lavasrc_rate_limit_queued", "Requests waiting for the rate limit of a source", sourceLabels);
+		var rateLimited = new CounterMetricFamily("lavasrc_rate_limited", "429 Too Many Requests responses received by a source", sourceLabels);
+		var circuitBreakerState = new GaugeMetricFamily("lavasrc_circuit_breaker_state", "The state of the circuit breaker of a source", List.of("source", "state"));
+		var circuitBreakerOpened = new CounterMetricFamily("lavasrc_circuit_breaker_opened", "How often the circuit breaker of a source opened", sourceLabels);
+
+		for (var sourceManager : this.sourceManagers.get()) {
+			var source = List.of(sourceManager.getSourceName());
+			var cache = sourceManager.getItemCache();
+			if (cache != null) {
+				var labels = List.of("item", sourceManager.getSourceName());
+				cacheHits.addMetric(labels, cache.getHits());
+				cacheMisses.addMetric(labels, cache.getMisses());
+				cacheSize.addMetric(labels, cache.size());
+			}
+			for (var entry : sourceManager.getInternalCaches().entrySet()) {
+				var labels = List.of(entry.getKey(), sourceManager.getSourceName());
+				cacheHits.addMetric(labels, entry.getValue().getHits());
+				cacheMisses.addMetric(labels, entry.getValue().getMisses());
+				cacheSize.addMetric(labels, entry.getValue().size());
+			}
+
+			var scheduler = sourceManager.getRequestScheduler();
+			throttled.addMetric(source, scheduler.isThrottled() ? 1 : 0);
+			queued.addMetric(source, scheduler.getQueued());
+			rateLimited.addMetric(source, scheduler.getRateLimited());
+		}
+
+		if (this.resolutionCache != null) {
+			var labels = List.of("mirror_resolution", "mirror");
+			cacheHits.addMetric(labels, this.resolutionCache.getHits());
+			cacheMisses.addMetric(labels, this.resolutionCache.getMisses());
+			cacheSize.addMetric(labels, this.resolutionCache.size());
+		}
+		if (this.negativeCache != null) {
+			var labels = List.of("mirror_negative", "mirror");
+			cacheHits.addMetric(labels, this.negativeCache.getHits());
+			cacheSize.addMetric(labels, this.negativeCache.size());
+		}
+
+		for (var entry : this.circuitBreakers.get().entrySet()) {
+			var state = entry.getValue().getState();
+			for (var value : CircuitBreaker.State.values()) {
+				circuitBreakerState.addMetric(List.of(entry.getKey(), value.name().toLowerCase()), value == state ? 1 : 0);
+			}
+			circuitBreakerOpened.addMetric(List.of(entry.getKey()), entry.getValue().getOpened());
+		}
+
+		return List.of(cacheHits, cacheMisses, cacheSize, throttled, queued, rateLimited, circuitBreakerState, circuitBreakerOpened);
+	}
+
+}
@@ -4,29 +4,66 @@ import com.github.topi314.lavalyrics.LyricsManager;
 import com.github.topi314.lavalyrics.api.LyricsManagerConfiguration;
 import com.github.topi314.lavasearch.SearchManager;
 import com.github.topi314.lavasearch.api.SearchManagerConfiguration;
+import com.github.topi314.lavasrc.AudioItemCache;
+import com.github.topi314.lavasrc.CircuitBreaker;
+import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
+import com.github.topi314.lavasrc.LavaSrcHttpPool;
+import com.github.topi314.lavasrc.LavaSrcMetrics;
 import com.github.topi314.lavasrc.applemusic.AppleMusicSourceManager;
 import com.github.topi314.lavasrc.deezer.DeezerAudioSourceManager;
 import com.github.topi314.lavasrc.deezer.DeezerAudioTrack;
 import com.github.topi314.lavasrc.flowerytts.FloweryTTSSourceManager;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
+import com.github.topi314.lavasrc.mirror.DefaultMirroringResolutionCache;
+import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
+import com.github.topi314.lavasrc.mirror.MirroringAudioTrack;
+import com.github.topi314.lavasrc.mirror.MirroringNegativeCache;
+import com.github.topi314.lavasrc.mirror.MirroringResolutionCache;
 import com.github.topi314.lavasrc.plugin.config.*;
+import com.github.topi314.lavasrc.protocol.CacheStats;
+import com.github.topi314.lavasrc.protocol.CircuitBreakerStats;
 import com.github.topi314.lavasrc.protocol.Config;
+import com.github.topi314.lavasrc.protocol.RateLimitStats;
 import com.github.topi314.lavasrc.spotify.SpotifySourceManager;
 import com.github.topi314.lavasrc.vkmusic.VkMusicSourceManager;
 import com.github.topi314.lavasrc.yandexmusic.YandexMusicSourceManager;
 import com.github.topi314.lavasrc.youtube.YoutubeSearchManager;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.track.DecodedTrackHolder;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import dev.arbjerg.lavalink.api.AudioPlayerManagerConfiguration;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @Service
 @RestController
-public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchManagerConfiguration, LyricsManagerConfiguration {
+public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchManagerConfiguration, LyricsManagerConfiguration, DisposableBean {
 
 	private static final Logger log = LoggerFactory.getLogger(LavaSrcPlugin.class);
 
@@ -40,14 +77,30 @@ public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchMan
 	private FloweryTTSSourceManager flowerytts;
 	private YoutubeSearchManager youtube;
 	private VkMusicSourceManager vkMusic;
+	private MirroringResolutionCache resolutionCache;
+	private MirroringNegativeCache negativeCache;
 
-	public LavaSrcPlugin(LavaSrcConfig pluginConfig, SourcesConfig sourcesConfig, LyricsSourcesConfig lyricsSourcesConfig, SpotifyConfig spotifyConfig, AppleMusicConfig appleMusicConfig, DeezerConfig deezerConfig, YandexMusicConfig yandexMusicConfig, FloweryTTSConfig floweryTTSConfig, YouTubeConfig youTubeConfig, VkMusicConfig vkMusicConfig) {
+	public LavaSrcPlugin(LavaSrcConfig pluginConfig, SourcesConfig sourcesConfig, LyricsSourcesConfig lyricsSourcesConfig, SpotifyConfig spotifyConfig, AppleMusicConfig appleMusicConfig, DeezerConfig deezerConfig, YandexMusicConfig yandexMusicConfig, FloweryTTSConfig floweryTTSConfig, YouTubeConfig youTubeConfig, VkMusicConfig vkMusicConfig, MirrorConfig mirrorConfig, CacheConfig cacheConfig, HttpConfig httpConfig) {
 		log.info("Loading LavaSrc plugin...");
+		// the pool has to be configured before any source creates its http client
+		LavaSrcHttpPool.configure(httpConfig.getMaxConnections(), httpConfig.getMaxConnectionsPerRoute(), Duration.ofSeconds(httpConfig.getKeepAlive()), Duration.ofSeconds(httpConfig.getConnectionTtl()), Duration.ofSeconds(httpConfig.getConnectionRequestTimeout()), httpConfig.isCompression());
 		this.sourcesConfig = sourcesConfig;
 		this.lyricsSourcesConfig = lyricsSourcesConfig;
 
+		if (mirrorConfig.isCacheEnabled()) {
+			var cacheFile = mirrorConfig.getCacheFile() == null || mirrorConfig.getCacheFile().isBlank() ? null : Path.of(mirrorConfig.getCacheFile());
+			this.resolutionCache = new DefaultMirroringResolutionCache(mirrorConfig.getCacheMaxSize(), TimeUnit.SECONDS.toMillis(mirrorConfig.getCacheTtl()), cacheFile);
+		}
+		if (mirrorConfig.isNegativeCacheEnabled()) {
+			this.negativeCache = new MirroringNegativeCache(mirrorConfig.getNegativeCacheMaxSize(), TimeUnit.SECONDS.toMillis(mirrorConfig.getNegativeCacheTtl()), TimeUnit.SECONDS.toMillis(mirrorConfig.getNegativeCacheJitter()));
+		}
+		var mirroringResolver = new DefaultMirroringAudioTrackResolver(pluginConfig.getProviders());
+		mirroringResolver.setHedgeDelay(mirrorConfig.getHedgeDelay());
+		mirroringResolver.setProviderTimeout(mirrorConfig.getProviderTimeout());
+		mirroringResolver.setAdaptiveOrder(mirrorConfig.isAdaptiveOrder());
+
 		if (sourcesConfig.isSpotify() || lyricsSourcesConfig.isSpotify()) {
-			this.spotify = new SpotifySourceManager(spotifyConfig.getClientId(), spotifyConfig.getClientSecret(), spotifyConfig.getSpDc(), spotifyConfig.getCountryCode(), unused -> manager, new DefaultMirroringAudioTrackResolver(pluginConfig.getProviders()));
+			this.spotify = new SpotifySourceManager(spotifyConfig.getClientId(), spotifyConfig.getClientSecret(), spotifyConfig.getSpDc(), spotifyConfig.getCountryCode(), unused -> manager, mirroringResolver);
 			if (spotifyConfig.getPlaylistLoadLimit() > 0) {
 				this.spotify.setPlaylistPageLimit(spotifyConfig.getPlaylistLoadLimit());
 			}
@@ -60,15 +113,30 @@ public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchMan
 			if (spotifyConfig.isLocalFiles()) {
 				this.spotify.setLocalFiles(spotifyConfig.isLocalFiles());
 			}
+			if (spotifyConfig.getTokenRefreshMargin() >= 0) {
+				this.spotify.setTokenRefreshMargin(Duration.ofSeconds(spotifyConfig.getTokenRefreshMargin()));
+			}
+			this.spotify.setResolutionCache(this.resolutionCache);
+			this.spotify.setNegativeCache(this.negativeCache);
+			if (mirrorConfig.getBulkResolveConcurrency() > 0) {
+				this.spotify.setBulkResolveConcurrency(mirrorConfig.getBulkResolveConcurrency());
+			}
+			this.spotify.setBulkResolveRate(mirrorConfig.getBulkResolveRate());
 		}
 		if (sourcesConfig.isAppleMusic()) {
-			this.appleMusic = new AppleMusicSourceManager(pluginConfig.getProviders(), appleMusicConfig.getMediaAPIToken(), appleMusicConfig.getCountryCode(), unused -> manager);
+			this.appleMusic = new AppleMusicSourceManager(appleMusicConfig.getMediaAPIToken(), appleMusicConfig.getCountryCode(), unused -> manager, mirroringResolver);
 			if (appleMusicConfig.getPlaylistLoadLimit() > 0) {
 				appleMusic.setPlaylistPageLimit(appleMusicConfig.getPlaylistLoadLimit());
 			}
 			if (appleMusicConfig.getAlbumLoadLimit() > 0) {
 				appleMusic.setAlbumPageLimit(appleMusicConfig.getAlbumLoadLimit());
 			}
+			appleMusic.setResolutionCache(this.resolutionCache);
+			appleMusic.setNegativeCache(this.negativeCache);
+			if (mirrorConfig.getBulkResolveConcurrency() > 0) {
+				appleMusic.setBulkResolveConcurrency(mirrorConfig.getBulkResolveConcurrency());
+			}
+			appleMusic.setBulkResolveRate(mirrorConfig.getBulkResolveRate());
 		}
 		if (sourcesConfig.isDeezer() || lyricsSourcesConfig.isDeezer()) {
 			this.deezer = new DeezerAudioSourceManager(deezerConfig.getMasterDecryptionKey(), deezerConfig.getArl(), deezerConfig.getFormats());
@@ -120,6 +188,30 @@ public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchMan
 				vkMusic.setRecommendationsLoadLimit(vkMusicConfig.getRecommendationLoadLimit());
 			}
 		}
+
+		if (cacheConfig.isEnabled()) {
+			var ttls = Map.of(
+				AudioItemCache.Type.TRACK, TimeUnit.SECONDS.toMillis(cacheConfig.getTrackTtl()),
+				AudioItemCache.Type.ALBUM, TimeUnit.SECONDS.toMillis(cacheConfig.getAlbumTtl()),
+				AudioItemCache.Type.PLAYLIST, TimeUnit.SECONDS.toMillis(cacheConfig.getPlaylistTtl()),
+				AudioItemCache.Type.ARTIST, TimeUnit.SECONDS.toMillis(cacheConfig.getArtistTtl()),
+				AudioItemCache.Type.SEARCH, TimeUnit.SECONDS.toMillis(cacheConfig.getSearchTtl())
+			);
+			for (var sourceManager : this.getExtendedSourceManagers()) {
+				sourceManager.setItemCache(new AudioItemCache(cacheConfig.getMaxSize(), ttls));
+			}
+		}
+
+		if (pluginConfig.isMetrics()) {
+			LavaSrcMetrics.set(new PrometheusMetrics());
+			new LavaSrcCollector(this::getExtendedSourceManagers, this::getCircuitBreakers, this.resolutionCache, this.negativeCache).register();
+		}
+	}
+
+	private List<ExtendedAudioSourceManager> getExtendedSourceManagers() {
+		return Stream.<ExtendedAudioSourceManager>of(this.spotify, this.appleMusic, this.deezer, this.yandexMusic, this.vkMusic)
+			.filter(Objects::nonNull)
+			.toList();
 	}
 
 	private boolean hasNewYoutubeSource() {
@@ -218,6 +310,126 @@ public class LavaSrcPlugin implements AudioPlayerManagerConfiguration, SearchMan
 		return manager;
 	}
 
+	@Override
+	public void destroy() {
+		// the resolution cache is shared by the sources, so they leave closing it to us
+		if (this.resolutionCache != null) {
+			this.resolutionCache.close();
+		}
+	}
+
+	@GetMapping("/v4/lavasrc/cache")
+	public Map<String, CacheStats> getCacheStats() {
+		var stats = new LinkedHashMap<String, CacheStats>();
+		for (var sourceManager : this.getExtendedSourceManagers()) {
+			var cache = sourceManager.getItemCache();
+			if (cache == null) {
+				continue;
+			}
+			var total = cache.getHits() + cache.getMisses();
+			stats.put(sourceManager.getSourceName(), new CacheStats(cache.size(), cache.getHits(), cache.getMisses(), total == 0 ? 0 : (double) cache.getHits() / total));
+		}
+		return stats;
+	}
+
+	@GetMapping("/v4/lavasrc/rate-limits")
+	public Map<String, RateLimitStats> getRateLimitStats() {
+		var stats = new LinkedHashMap<String, RateLimitStats>();
+		for (var sourceManager : this.getExtendedSourceManagers()) {
+			var scheduler = sourceManager.getRequestScheduler();
+			stats.put(sourceManager.getSourceName(), new RateLimitStats(scheduler.isThrottled(), scheduler.getRetryAfter(), scheduler.getQueued(), scheduler.getRateLimited(), scheduler.getRate()));
+		}
+		return stats;
+	}
+
+	@GetMapping("/v4/lavasrc/circuit-breakers")
+	public Map<String, CircuitBreakerStats> getCircuitBreakerStats() {
+		var stats = new LinkedHashMap<String, CircuitBreakerStats>();
+		for (var entry : this.getCircuitBreakers().entrySet()) {
+			var circuitBreaker = entry.getValue();
+			stats.put(entry.getKey(), new CircuitBreakerStats(circuitBreaker.getState().name(), circuitBreaker.getFailureRate(), circuitBreaker.getSlowCallRate(), circuitBreaker.getRetryAfter(), circuitBreaker.getOpened()));
+		}
+		return stats;
+	}
+
+	private Map<String, CircuitBreaker> getCircuitBreakers() {
+		var circuitBreakers = new LinkedHashMap<String, CircuitBreaker>();
+		for (var sourceManager : this.getExtendedSourceManagers()) {
+			circuitBreakers.put(sourceManager.getSourceName(), sourceManager.getCircuitBreaker());
+		}
+		if (this.flowerytts != null) {
+			circuitBreakers.put(this.flowerytts.getSourceName(), this.flowerytts.getCircuitBreaker());
+		}
+		return circuitBreakers;
+	}
+
+	@PostMapping("/v4/lavasrc/mirror/prefetch")
+	public int prefetchMirrors(@RequestBody List<String> encodedTracks) {
+		var tracks = this.decodeTracks(encodedTracks);
+		var queued = 0;
+		for (var sourceManager : this.getMirroringSourceManagers()) {
+			queued += sourceManager.prefetch(tracks);
+		}
+		return queued;
+	}
+
+	@PostMapping("/v4/lavasrc/mirror/resolve")
+	public int resolveMirrors(@RequestBody List<String> encodedTracks) {
+		if (this.resolutionCache == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The mirror cache has to be enabled to resolve tracks in bulk");
+		}
+		var tracks = this.decodeTracks(encodedTracks);
+		for (var sourceManager : this.getMirroringSourceManagers()) {
+			sourceManager.resolveAll(tracks, null).whenComplete((result, e) -> {
+				if (e != null) {
+					log.warn("Failed to resolve {} track mirrors", sourceManager.getSourceName(), e);
+				} else if (result.getTotal() > 0) {
+					log.info("Resolved {} of {} {} track mirrors, {} failed", result.getResolved(), result.getTotal(), sourceManager.getSourceName(), result.getFailed());
+				}
+			});
+		}
+		return (int) tracks.stream().filter(MirroringAudioTrack.class::isInstance).count();
+	}
+
+	private List<AudioTrack> decodeTracks(List<String> encodedTracks) {
+		var tracks = new ArrayList<AudioTrack>(encodedTracks.size());
+		for (var encodedTrack : encodedTracks) {
+			try {
+				var holder = this.manager.decodeTrack(new MessageInput(new ByteArrayInputStream(Base64.getDecoder().decode(encodedTrack))));
+				if (holder != null && holder.decodedTrack != null) {
+					tracks.add(holder.decodedTrack);
+				}
+			} catch (Exception e) {
+				log.debug("Failed to decode track", e);
+			}
+		}
+		return tracks;
+	}
+
+	private List<MirroringAudioSourceManager> getMirroringSourceManagers() {
+		return Stream.<MirroringAudioSourceManager>of(this.spotify, this.appleMusic).filter(Objects::nonNull).toList();
+	}
+
+	@DeleteMapping("/v4/lavasrc/mirror/negative-cache")
+	public void invalidateNegativeCache(@RequestParam(required = false) String encodedTrack) {
+		if (this.negativeCache == null) {
+			return;
+		}
+		if (encodedTrack == null) {
+			this.negativeCache.clear();
+			return;
+		}
+		DecodedTrackHolder holder;
+		try {
+			holder = this.manager.decodeTrack(new MessageInput(new ByteArrayInputStream(Base64.getDecoder().decode(encodedTrack))));
+		} catch (IllegalArgumentException | IOException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid encoded track", e);
+		}
+		if (holder != null && holder.decodedTrack != null) {
+			this.negativeCache.remove(MirroringResolutionCache.key(holder.decodedTrack.getInfo()));
+		}
+	}
+
 	@PatchMapping("/v4/lavasrc/config")
 	public void updateConfig(Config config) {
 		var spotifyConfig = config.getSpotify();
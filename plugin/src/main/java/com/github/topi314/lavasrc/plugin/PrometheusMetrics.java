@@ -0,0 +1,94 @@
+package com.github.topi314.lavasrc.plugin;
+
+import com.github.topi314.lavasrc.LavaSrcMetrics;
+import com.github.topi314.lavasrc.mirror.ProviderStats;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the measurements of LavaSrc to the Prometheus registry Lavalink serves its metrics from.
+ */
+public class PrometheusMetrics extends LavaSrcMetrics {
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final Counter requests = Counter.build()
+		.name("lavasrc_requests")
+		.help("API requests sent by LavaSrc sources")
+		.labelNames("source", "endpoint", "status")
+		.register();
+	private final Histogram requestDuration = Histogram.build()
+		.name("lavasrc_request_duration_seconds")
+		.help("Time until the API responded to LavaSrc sources")
+		.labelNames("source", "endpoint")
+		.register();
+	private final Counter tokenRefreshes = Counter.build()
+		.name("lavasrc_token_refreshes")
+		.help("Tokens fetched by LavaSrc sources")
+		.labelNames("token", "result")
+		.register();
+	private final Histogram tokenRefreshDuration = Histogram.build()
+		.name("lavasrc_token_refresh_duration_seconds")
+		.help("Time it took to fetch a token")
+		.labelNames("token")
+		.register();
+	private final Histogram mirrorSearchDuration = Histogram.build()
+		.name("lavasrc_mirror_search_duration_seconds")
+		.help("Time mirroring providers took to search for a track, by outcome")
+		.labelNames("provider", "outcome")
+		.register();
+	private final Counter decryptedBytes = Counter.build()
+		.name("lavasrc_decrypted_bytes")
+		.help("Bytes read through decrypting streams")
+		.labelNames("source")
+		.register();
+	private final Counter decryptTime = Counter.build()
+		.name("lavasrc_decrypt_seconds")
+		.help("Time spent decrypting streams")
+		.labelNames("source")
+		.register();
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void onRequest(String source, String endpoint, int statusCode, long duration) {
+		this.requests.labels(source, endpoint, statusLabel(statusCode)).inc();
+		this.requestDuration.labels(source, endpoint).observe(duration / NANOS_PER_SECOND);
+	}
+
+	@Override
+	public void onTokenRefresh(String name, boolean success, long duration) {
+		this.tokenRefreshes.labels(name, success ? "success" : "failure").inc();
+		this.tokenRefreshDuration.labels(name).observe(duration / NANOS_PER_SECOND);
+	}
+
+	@Override
+	public void onMirrorSearch(String provider, ProviderStats.Outcome outcome, long duration) {
+		this.mirrorSearchDuration.labels(provider, outcome.name().toLowerCase()).observe(duration / NANOS_PER_SECOND);
+	}
+
+	@Override
+	public void onDecrypt(String source, long bytes, long duration) {
+		this.decryptedBytes.labels(source).inc(bytes);
+		this.decryptTime.labels(source).inc(duration / NANOS_PER_SECOND);
+	}
+
+	/**
+	 * Groups status codes by their class, so the label stays bounded. Rate limits are kept apart since they are the interesting client error.
+	 */
+	private static String statusLabel(int statusCode) {
+		if (statusCode == 0) {
+			return "error";
+		}
+		if (statusCode == 429) {
+			return "429";
+		}
+		return statusCode / 100 + "xx";
+	}
+
+}
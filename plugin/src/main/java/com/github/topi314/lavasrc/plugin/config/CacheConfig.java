@@ -0,0 +1,73 @@
+package com.github.topi314.lavasrc.plugin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "plugins.lavasrc.cache")
+@Component
+public class CacheConfig {
+
+	private boolean enabled = false;
+	private int maxSize = 1000;
+	private long trackTtl = 3600;
+	private long albumTtl = 3600;
+	private long playlistTtl = 300;
+	private long artistTtl = 1800;
+	private long searchTtl = 300;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getTrackTtl() {
+		return this.trackTtl;
+	}
+
+	public void setTrackTtl(long trackTtl) {
+		this.trackTtl = trackTtl;
+	}
+
+	public long getAlbumTtl() {
+		return this.albumTtl;
+	}
+
+	public void setAlbumTtl(long albumTtl) {
+		this.albumTtl = albumTtl;
+	}
+
+	public long getPlaylistTtl() {
+		return this.playlistTtl;
+	}
+
+	public void setPlaylistTtl(long playlistTtl) {
+		this.playlistTtl = playlistTtl;
+	}
+
+	public long getArtistTtl() {
+		return this.artistTtl;
+	}
+
+	public void setArtistTtl(long artistTtl) {
+		this.artistTtl = artistTtl;
+	}
+
+	public long getSearchTtl() {
+		return this.searchTtl;
+	}
+
+	public void setSearchTtl(long searchTtl) {
+		this.searchTtl = searchTtl;
+	}
+}
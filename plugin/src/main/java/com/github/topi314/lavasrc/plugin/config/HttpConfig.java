@@ -0,0 +1,64 @@
+package com.github.topi314.lavasrc.plugin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "plugins.lavasrc.http")
+@Component
+public class HttpConfig {
+
+	private int maxConnections = 200;
+	private int maxConnectionsPerRoute = 20;
+	private long keepAlive = 30;
+	private long connectionTtl = 300;
+	private long connectionRequestTimeout = 5;
+	private boolean compression = true;
+
+	public int getMaxConnections() {
+		return this.maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return this.maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public long getKeepAlive() {
+		return this.keepAlive;
+	}
+
+	public void setKeepAlive(long keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public long getConnectionTtl() {
+		return this.connectionTtl;
+	}
+
+	public void setConnectionTtl(long connectionTtl) {
+		this.connectionTtl = connectionTtl;
+	}
+
+	public long getConnectionRequestTimeout() {
+		return this.connectionRequestTimeout;
+	}
+
+	public void setConnectionRequestTimeout(long connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	public boolean isCompression() {
+		return this.compression;
+	}
+
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+}
@@ -14,6 +14,7 @@ public class LavaSrcConfig {
 		"ytsearch:\"" + ISRC_PATTERN + "\"",
 		"ytsearch:" + QUERY_PATTERN
 	};
+	private boolean metrics = false;
 
 	public String[] getProviders() {
 		return this.providers;
@@ -23,4 +24,12 @@ public class LavaSrcConfig {
 		this.providers = providers;
 	}
 
+	public boolean isMetrics() {
+		return this.metrics;
+	}
+
+	public void setMetrics(boolean metrics) {
+		this.metrics = metrics;
+	}
+
 }
@@ -0,0 +1,127 @@
+package com.github.topi314.lavasrc.plugin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "plugins.lavasrc.mirror")
+@Component
+public class MirrorConfig {
+
+	private boolean cacheEnabled = false;
+	private int cacheMaxSize = 10000;
+	private long cacheTtl = 604800;
+	private String cacheFile;
+	private long hedgeDelay = -1;
+	private long providerTimeout = 10000;
+	private boolean adaptiveOrder = false;
+	private boolean negativeCacheEnabled = false;
+	private int negativeCacheMaxSize = 10000;
+	private long negativeCacheTtl = 300;
+	private long negativeCacheJitter = 60;
+	private int bulkResolveConcurrency = 4;
+	private double bulkResolveRate = 5;
+
+	public boolean isCacheEnabled() {
+		return this.cacheEnabled;
+	}
+
+	public void setCacheEnabled(boolean cacheEnabled) {
+		this.cacheEnabled = cacheEnabled;
+	}
+
+	public int getCacheMaxSize() {
+		return this.cacheMaxSize;
+	}
+
+	public void setCacheMaxSize(int cacheMaxSize) {
+		this.cacheMaxSize = cacheMaxSize;
+	}
+
+	public long getCacheTtl() {
+		return this.cacheTtl;
+	}
+
+	public void setCacheTtl(long cacheTtl) {
+		this.cacheTtl = cacheTtl;
+	}
+
+	public String getCacheFile() {
+		return this.cacheFile;
+	}
+
+	public void setCacheFile(String cacheFile) {
+		this.cacheFile = cacheFile;
+	}
+
+	public long getHedgeDelay() {
+		return this.hedgeDelay;
+	}
+
+	public void setHedgeDelay(long hedgeDelay) {
+		this.hedgeDelay = hedgeDelay;
+	}
+
+	public long getProviderTimeout() {
+		return this.providerTimeout;
+	}
+
+	public void setProviderTimeout(long providerTimeout) {
+		this.providerTimeout = providerTimeout;
+	}
+
+	public boolean isAdaptiveOrder() {
+		return this.adaptiveOrder;
+	}
+
+	public void setAdaptiveOrder(boolean adaptiveOrder) {
+		this.adaptiveOrder = adaptiveOrder;
+	}
+
+	public boolean isNegativeCacheEnabled() {
+		return this.negativeCacheEnabled;
+	}
+
+	public void setNegativeCacheEnabled(boolean negativeCacheEnabled) {
+		this.negativeCacheEnabled = negativeCacheEnabled;
+	}
+
+	public int getNegativeCacheMaxSize() {
+		return this.negativeCacheMaxSize;
+	}
+
+	public void setNegativeCacheMaxSize(int negativeCacheMaxSize) {
+		this.negativeCacheMaxSize = negativeCacheMaxSize;
+	}
+
+	public long getNegativeCacheTtl() {
+		return this.negativeCacheTtl;
+	}
+
+	public void setNegativeCacheTtl(long negativeCacheTtl) {
+		this.negativeCacheTtl = negativeCacheTtl;
+	}
+
+	public long getNegativeCacheJitter() {
+		return this.negativeCacheJitter;
+	}
+
+	public void setNegativeCacheJitter(long negativeCacheJitter) {
+		this.negativeCacheJitter = negativeCacheJitter;
+	}
+
+	public int getBulkResolveConcurrency() {
+		return this.bulkResolveConcurrency;
+	}
+
+	public void setBulkResolveConcurrency(int bulkResolveConcurrency) {
+		this.bulkResolveConcurrency = bulkResolveConcurrency;
+	}
+
+	public double getBulkResolveRate() {
+		return this.bulkResolveRate;
+	}
+
+	public void setBulkResolveRate(double bulkResolveRate) {
+		this.bulkResolveRate = bulkResolveRate;
+	}
+}
@@ -15,6 +15,7 @@ public class SpotifyConfig {
 	private int albumLoadLimit = 6;
 	private boolean resolveArtistsInSearch = true;
 	private boolean localFiles = false;
+	private int tokenRefreshMargin = 300;
 
 	public String getClientId() {
 		return this.clientId;
@@ -79,4 +80,12 @@ public class SpotifyConfig {
 	public void setLocalFiles(boolean localFiles) {
 		this.localFiles = localFiles;
 	}
+
+	public int getTokenRefreshMargin() {
+		return this.tokenRefreshMargin;
+	}
+
+	public void setTokenRefreshMargin(int tokenRefreshMargin) {
+		this.tokenRefreshMargin = tokenRefreshMargin;
+	}
 }
@@ -0,0 +1,29 @@
+package com.github.topi314.lavasrc.protocol
+
+import kotlinx.serialization.Serializable
+
+@Serializable
+data class CacheStats(
+    val size: Int,
+    val hits: Long,
+    val misses: Long,
+    val hitRate: Double,
+)
+
+@Serializable
+data class RateLimitStats(
+    val throttled: Boolean,
+    val retryAfter: Long,
+    val queued: Int,
+    val rateLimited: Long,
+    val rate: Double,
+)
+
+@Serializable
+data class CircuitBreakerStats(
+    val state: String,
+    val failureRate: Double,
+    val slowCallRate: Double,
+    val retryAfter: Long,
+    val opened: Long,
+)